@@ -0,0 +1,199 @@
+package com.heliorodri.springwebfluxpoc.benchmark;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieCatalogVersion;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InMemoryMovieRepository implements MovieRepository {
+
+    private final Map<Integer, Movie> movies = new ConcurrentHashMap<>();
+
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    @Override
+    public Mono<Movie> findById(int id) {
+        return Mono.justOrEmpty(movies.get(id));
+    }
+
+    @Override
+    public Flux<Movie> findPageAfter(int after, int limit) {
+        return findAll()
+                .filter(movie -> movie.getId() > after)
+                .take(limit);
+    }
+
+    @Override
+    public Mono<Long> findVersionById(int id) {
+        return findById(id).map(Movie::getVersion);
+    }
+
+    @Override
+    public Mono<MovieCatalogVersion> findCatalogVersion() {
+        return Mono.fromSupplier(() -> new MovieCatalogVersion(movies.size(),
+                movies.keySet().stream().mapToInt(Integer::intValue).max().orElse(0),
+                movies.values().stream().mapToLong(Movie::getVersion).sum()));
+    }
+
+    @Override
+    public Flux<Movie> findAllByIds(Integer[] ids) {
+        return Flux.fromArray(ids).flatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Movie> searchByName(String pattern, int limit) {
+        String regex = pattern.replace("%", ".*");
+
+        return findAll()
+                .filter(movie -> movie.getName().toLowerCase().matches(regex))
+                .take(limit);
+    }
+
+    @Override
+    public Mono<Integer> updateName(int id, String name) {
+        return Mono.fromSupplier(() -> movies.computeIfPresent(id,
+                (key, movie) -> movie.withName(name).withVersion(movie.getVersion() + 1)) == null ? 0 : 1);
+    }
+
+    @Override
+    public Mono<Integer> updateNameIfVersion(int id, String name, Long[] versions) {
+        return Mono.fromSupplier(() -> {
+            Movie current = movies.get(id);
+            if (current == null || !Arrays.asList(versions).contains(current.getVersion())) {
+                return 0;
+            }
+
+            return movies.replace(id, current, current.withName(name).withVersion(current.getVersion() + 1)) ? 1 : 0;
+        });
+    }
+
+    @Override
+    public Mono<Integer> removeById(int id) {
+        return Mono.fromSupplier(() -> movies.remove(id) == null ? 0 : 1);
+    }
+
+    @Override
+    public Flux<Movie> streamAll() {
+        return findAll();
+    }
+
+    @Override
+    public Flux<Movie> insertAll(List<Movie> movies) {
+        return Flux.fromIterable(movies).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Integer> updateNames(List<Movie> updates) {
+        return Mono.fromSupplier(() -> (int) updates.stream()
+                .filter(update -> movies.computeIfPresent(update.getId(), (key, movie) -> movie.withName(update.getName())
+                        .withVersion(Math.max(movie.getVersion() + 1, update.getVersion()))) != null)
+                .count());
+    }
+
+    @Override
+    public <S extends Movie> Mono<S> save(S movie) {
+        if (movie.getId() == null) {
+            movie.setId(sequence.incrementAndGet());
+            movie.setVersion(0L);
+        }
+        movies.put(movie.getId(), movie);
+
+        return Mono.just(movie);
+    }
+
+    @Override
+    public <S extends Movie> Flux<S> saveAll(Iterable<S> movies) {
+        return Flux.fromIterable(movies).concatMap(this::save);
+    }
+
+    @Override
+    public <S extends Movie> Flux<S> saveAll(Publisher<S> movies) {
+        return Flux.from(movies).concatMap(this::save);
+    }
+
+    @Override
+    public Mono<Movie> findById(Integer id) {
+        return findById(id.intValue());
+    }
+
+    @Override
+    public Mono<Movie> findById(Publisher<Integer> id) {
+        return Mono.from(id).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Integer id) {
+        return Mono.just(movies.containsKey(id));
+    }
+
+    @Override
+    public Mono<Boolean> existsById(Publisher<Integer> id) {
+        return Mono.from(id).flatMap(this::existsById);
+    }
+
+    @Override
+    public Flux<Movie> findAll() {
+        return Flux.fromIterable(movies.values())
+                .sort(Comparator.comparing(Movie::getId));
+    }
+
+    @Override
+    public Flux<Movie> findAllById(Iterable<Integer> ids) {
+        return Flux.fromIterable(ids).flatMap(this::findById);
+    }
+
+    @Override
+    public Flux<Movie> findAllById(Publisher<Integer> ids) {
+        return Flux.from(ids).flatMap(this::findById);
+    }
+
+    @Override
+    public Mono<Long> count() {
+        return Mono.just((long) movies.size());
+    }
+
+    @Override
+    public Mono<Void> deleteById(Integer id) {
+        return Mono.fromRunnable(() -> movies.remove(id));
+    }
+
+    @Override
+    public Mono<Void> deleteById(Publisher<Integer> id) {
+        return Mono.from(id).flatMap(this::deleteById);
+    }
+
+    @Override
+    public Mono<Void> delete(Movie movie) {
+        return deleteById(movie.getId());
+    }
+
+    @Override
+    public Mono<Void> deleteAllById(Iterable<? extends Integer> ids) {
+        return Mono.fromRunnable(() -> ids.forEach(movies::remove));
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Iterable<? extends Movie> movies) {
+        return Flux.fromIterable(movies).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll(Publisher<? extends Movie> movies) {
+        return Flux.from(movies).concatMap(this::delete).then();
+    }
+
+    @Override
+    public Mono<Void> deleteAll() {
+        return Mono.fromRunnable(movies::clear);
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.heliorodri.springwebfluxpoc.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heliorodri.springwebfluxpoc.codec.MovieCborEncoder;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieCodecBenchmark {
+
+    private static final ResolvableType MOVIE_TYPE = ResolvableType.forClass(Movie.class);
+
+    private static final ResolvableType MOVIE_LIST_TYPE = ResolvableType.forClassWithGenerics(List.class, Movie.class);
+
+    private static final int LIST_SIZE = 100;
+
+    private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+
+    private final Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+
+    private final MovieCborEncoder cborEncoder = new MovieCborEncoder(cborMapper);
+
+    private final Jackson2CborDecoder cborDecoder = new Jackson2CborDecoder(cborMapper, APPLICATION_CBOR);
+
+    private Movie movie;
+
+    private List<Movie> movies;
+
+    private byte[] json;
+
+    private byte[] jsonList;
+
+    private byte[] cbor;
+
+    private byte[] cborList;
+
+    @Setup
+    public void setUp() {
+        movie = Movie.builder().id(42).name("The Movie Benchmark").version(3L).build();
+        movies = IntStream.rangeClosed(1, LIST_SIZE)
+                .mapToObj(id -> Movie.builder().id(id).name("The Movie Benchmark " + id).version(3L).build())
+                .collect(Collectors.toList());
+
+        json = toBytes(encoder.encodeValue(movie, bufferFactory, MOVIE_TYPE, APPLICATION_JSON, Collections.emptyMap()));
+        jsonList = toBytes(encoder.encodeValue(movies, bufferFactory, MOVIE_LIST_TYPE, APPLICATION_JSON, Collections.emptyMap()));
+        cbor = toBytes(cborEncoder.encodeValue(movie, bufferFactory, MOVIE_TYPE, APPLICATION_CBOR, Collections.emptyMap()));
+        cborList = toBytes(cborEncoder.encodeValue(movies, bufferFactory, MOVIE_LIST_TYPE, APPLICATION_CBOR, Collections.emptyMap()));
+
+        // JMH has no notion of payload size, so it is reported once alongside the timings
+        System.out.printf("Payload bytes: json=%d cbor=%d, %d movies: json=%d cbor=%d%n",
+                json.length, cbor.length, LIST_SIZE, jsonList.length, cborList.length);
+    }
+
+    @Benchmark
+    public int encodeJson() {
+        return release(encoder.encodeValue(movie, bufferFactory, MOVIE_TYPE, APPLICATION_JSON, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return decoder.decode(bufferFactory.wrap(json), MOVIE_TYPE, APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public int encodeJsonList() {
+        return release(encoder.encodeValue(movies, bufferFactory, MOVIE_LIST_TYPE, APPLICATION_JSON, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public Object decodeJsonList() {
+        return decoder.decode(bufferFactory.wrap(jsonList), MOVIE_LIST_TYPE, APPLICATION_JSON, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public int encodeCbor() {
+        return release(cborEncoder.encodeValue(movie, bufferFactory, MOVIE_TYPE, APPLICATION_CBOR, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public Object decodeCbor() {
+        return cborDecoder.decode(bufferFactory.wrap(cbor), MOVIE_TYPE, APPLICATION_CBOR, Collections.emptyMap());
+    }
+
+    @Benchmark
+    public int encodeCborList() {
+        return release(cborEncoder.encodeValue(movies, bufferFactory, MOVIE_LIST_TYPE, APPLICATION_CBOR, Collections.emptyMap()));
+    }
+
+    @Benchmark
+    public Object decodeCborList() {
+        return cborDecoder.decode(bufferFactory.wrap(cborList), MOVIE_LIST_TYPE, APPLICATION_CBOR, Collections.emptyMap());
+    }
+
+    private static int release(DataBuffer buffer) {
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+
+        return size;
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+
+        return bytes;
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.heliorodri.springwebfluxpoc.benchmark;
+
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.controller.MovieController;
+import com.heliorodri.springwebfluxpoc.controller.MovieHandler;
+import com.heliorodri.springwebfluxpoc.controller.MovieRouter;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.service.MovieBatchLoader;
+import com.heliorodri.springwebfluxpoc.service.MovieChangeFeed;
+import com.heliorodri.springwebfluxpoc.service.MovieService;
+import com.heliorodri.springwebfluxpoc.service.MovieWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+/**
+ * The same requests through the annotated controller and through the router functions, over an in-memory
+ * repository so that the difference is the dispatch, argument resolution and validation path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieDispatchBenchmark {
+
+    private static final int MOVIE_ID = 1;
+
+    @Param({"ANNOTATED", "FUNCTIONAL"})
+    private MovieProperties.Dispatch dispatch;
+
+    private WebTestClient client;
+
+    private Movie update;
+
+    @Setup
+    public void setUp() {
+        MovieProperties properties = new MovieProperties();
+        InMemoryMovieRepository repository = new InMemoryMovieRepository();
+        MovieCache cache = new MovieCache(properties);
+        MovieService service = new MovieService(repository, properties, cache,
+                new MovieBatchLoader(repository, properties), new MovieChangeFeed(properties),
+                new MovieWriteBuffer(repository, properties, cache, new SimpleMeterRegistry()));
+        service.save(Movie.builder().name("The Movie Benchmark").build()).block();
+
+        client = dispatch == MovieProperties.Dispatch.FUNCTIONAL
+                ? WebTestClient.bindToRouterFunction(MovieRouter.routes(new MovieHandler(service))).build()
+                : WebTestClient.bindToController(new MovieController(service)).build();
+        update = Movie.builder().name("The Movie Benchmark updated").build();
+    }
+
+    @Benchmark
+    public byte[] findById() {
+        return client.get()
+                .uri("/movies/{id}", MOVIE_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBodyContent();
+    }
+
+    @Benchmark
+    public byte[] findPage() {
+        return client.get()
+                .uri("/movies?limit=20")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBodyContent();
+    }
+
+    @Benchmark
+    public Object update() {
+        return client.put()
+                .uri("/movies/{id}", MOVIE_ID)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.heliorodri.springwebfluxpoc.benchmark;
+
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.controller.MovieController;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.service.MovieBatchLoader;
+import com.heliorodri.springwebfluxpoc.service.MovieChangeFeed;
+import com.heliorodri.springwebfluxpoc.service.MovieService;
+import com.heliorodri.springwebfluxpoc.service.MovieWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieHandlerBenchmark {
+
+    private static final int MOVIE_ID = 1;
+
+    private WebTestClient client;
+
+    private Movie update;
+
+    @Setup
+    public void setUp() {
+        MovieProperties properties = new MovieProperties();
+        InMemoryMovieRepository repository = new InMemoryMovieRepository();
+        MovieCache cache = new MovieCache(properties);
+        MovieService service = new MovieService(repository, properties, cache,
+                new MovieBatchLoader(repository, properties), new MovieChangeFeed(properties),
+                new MovieWriteBuffer(repository, properties, cache, new SimpleMeterRegistry()));
+        service.save(Movie.builder().name("The Movie Benchmark").build()).block();
+
+        client = WebTestClient.bindToController(new MovieController(service)).build();
+        update = Movie.builder().name("The Movie Benchmark updated").build();
+    }
+
+    @Benchmark
+    public byte[] findById() {
+        return client.get()
+                .uri("/movies/{id}", MOVIE_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBodyContent();
+    }
+
+    @Benchmark
+    public Object update() {
+        return client.put()
+                .uri("/movies/{id}", MOVIE_ID)
+                .contentType(APPLICATION_JSON)
+                .bodyValue(update)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult();
+    }
+
+}
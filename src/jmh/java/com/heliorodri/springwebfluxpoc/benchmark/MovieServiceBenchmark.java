@@ -0,0 +1,109 @@
+package com.heliorodri.springwebfluxpoc.benchmark;
+
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.service.MovieBatchLoader;
+import com.heliorodri.springwebfluxpoc.service.MovieChangeFeed;
+import com.heliorodri.springwebfluxpoc.service.MovieService;
+import com.heliorodri.springwebfluxpoc.service.MovieWriteBuffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovieServiceBenchmark {
+
+    private static final int MOVIE_ID = 1;
+
+    private MovieService service;
+
+    private Movie update;
+
+    @Setup
+    public void setUp() {
+        service = newService(new InMemoryMovieRepository());
+        service.save(Movie.builder().name("The Movie Benchmark").build()).block();
+
+        update = Movie.builder().name("The Movie Benchmark updated").build();
+    }
+
+    @State(Scope.Thread)
+    public static class BatchState {
+
+        @Param("100")
+        private int batchSize;
+
+        private InMemoryMovieRepository repository;
+
+        private MovieService service;
+
+        private List<Movie> batch;
+
+        @Setup
+        public void setUp() {
+            repository = new InMemoryMovieRepository();
+            service = newService(repository);
+        }
+
+        @Setup(Level.Invocation)
+        public void newBatch() {
+            batch = IntStream.range(0, batchSize)
+                    .mapToObj(i -> Movie.builder().name("Movie " + i).build())
+                    .collect(Collectors.toList());
+        }
+
+        // the in-memory table would otherwise grow by a batch per invocation and skew the gc profile
+        @TearDown(Level.Invocation)
+        public void clear() {
+            repository.deleteAll().block();
+        }
+
+    }
+
+    @Benchmark
+    public Movie findById() {
+        return service.findById(MOVIE_ID).block();
+    }
+
+    @Benchmark
+    public Object update() {
+        return service.update(MOVIE_ID, update).block();
+    }
+
+    @Benchmark
+    public List<Movie> saveAll(BatchState state) {
+        return state.service.saveAll(state.batch).collectList().block();
+    }
+
+    private static MovieService newService(InMemoryMovieRepository repository) {
+        MovieProperties properties = new MovieProperties();
+
+        MovieCache cache = new MovieCache(properties);
+        return new MovieService(repository, properties, cache,
+                new MovieBatchLoader(repository, properties), new MovieChangeFeed(properties),
+                new MovieWriteBuffer(repository, properties, cache, new SimpleMeterRegistry()));
+    }
+
+}
@@ -0,0 +1,144 @@
+package com.heliorodri.springwebfluxpoc.benchmark;
+
+import com.heliorodri.springwebfluxpoc.SpringWebfluxPocApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Time from launching a JVM to the first answered request, per profile. Each invocation starts a fresh process
+ * running the application and polls the health endpoint until anything answers.
+ *
+ * <p>{@code -p jvmArgs=-XX:SharedArchiveFile=target/app.jsa -p classpath=target/spring-webflux-poc-0.0.1-SNAPSHOT.jar}
+ * on the JMH command line measures the prod jar against a CDS archive (see the prod profile in the pom);
+ * {@code -p appArgs=...} passes application arguments, e.g. {@code --spring.flyway.enabled=false} without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    @Param({"default", "prod"})
+    private String profile;
+
+    @Param({""})
+    private String jvmArgs;
+
+    /** Empty runs the compiled classes with the benchmark's own runtime classpath. */
+    @Param({""})
+    private String classpath;
+
+    @Param({""})
+    private String appArgs;
+
+    private Process process;
+
+    @Benchmark
+    public int timeToFirstRequest() throws IOException, InterruptedException {
+        int port = freePort();
+        process = new ProcessBuilder(command(port))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/startup-benchmark.log")))
+                .start();
+
+        return awaitFirstResponse(new URL("http://localhost:" + port + "/actuator/health"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private List<String> command(int port) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (javaVersion() >= 13) {
+            // BlockHound redefines JDK classes when it is installed
+            command.add("-XX:+AllowRedefinitionToAddDeleteMethods");
+        }
+        command.addAll(split(jvmArgs));
+        command.add("-cp");
+        command.add(classpath.isEmpty() ? applicationClasspath() : classpath);
+        command.add(SpringWebfluxPocApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--spring.profiles.active=" + profile);
+        command.addAll(split(appArgs));
+        return command;
+    }
+
+    private int awaitFirstResponse(URL health) throws IOException, InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue()
+                        + ", see target/startup-benchmark.log");
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) health.openConnection();
+                try {
+                    // any status will do, the health of the database is not part of startup
+                    return connection.getResponseCode();
+                } finally {
+                    connection.disconnect();
+                }
+            } catch (ConnectException notListeningYet) {
+                Thread.sleep(5);
+            }
+        }
+        throw new IllegalStateException("The application did not answer within " + TIMEOUT_MILLIS + "ms");
+    }
+
+    /** The forked JVM's classpath without the test resources, whose application.yml would shadow the real one. */
+    private static String applicationClasspath() {
+        return Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .filter(entry -> !entry.endsWith("test-classes"))
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    private static List<String> split(String args) {
+        return args.trim().isEmpty() ? new ArrayList<>() : Arrays.asList(args.trim().split("\\s+"));
+    }
+
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
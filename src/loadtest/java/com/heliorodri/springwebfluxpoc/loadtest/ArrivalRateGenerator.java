@@ -0,0 +1,82 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Starts requests at a fixed arrival rate, independent of how fast earlier ones complete, so a slow server
+ * shows up as latency instead of silently lowering the offered load. Latency is measured from the moment a
+ * request was due rather than when it was actually sent, which keeps the percentiles free of coordinated
+ * omission when the generator itself falls behind.
+ */
+class ArrivalRateGenerator {
+
+    private static final Duration TICK = Duration.ofMillis(1);
+
+    private final MovieLoadClient client;
+
+    private final Workload workload;
+
+    private final int rate;
+
+    private final int maxInFlight;
+
+    private final Scheduler timer = Schedulers.newSingle("loadtest-timer");
+
+    ArrivalRateGenerator(MovieLoadClient client, Workload workload, int rate, int maxInFlight) {
+        this.client = client;
+        this.workload = workload;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    Mono<Void> run(Duration duration, LoadRecorder recorder) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            long total = rate * duration.getSeconds();
+            double intervalNanos = (double) TimeUnit.SECONDS.toNanos(1) / rate;
+            long[] scheduled = {0};
+
+            // each tick releases every request that has become due since the previous one, so rates above
+            // the timer resolution are still spread evenly instead of being rounded to the tick
+            return Flux.interval(Duration.ZERO, TICK, timer)
+                    .onBackpressureDrop()
+                    .map(tick -> Math.min(total, (long) ((System.nanoTime() - start) / intervalNanos) + 1))
+                    .takeUntil(due -> due >= total)
+                    .concatMapIterable(due -> {
+                        long from = scheduled[0];
+                        scheduled[0] = due;
+                        return LongStream.range(from, due)
+                                .mapToObj(n -> start + (long) (n * intervalNanos))
+                                .collect(Collectors.toList());
+                    })
+                    .onBackpressureDrop(due -> recorder.dropped())
+                    .flatMap(due -> send(due, recorder), maxInFlight)
+                    .then();
+        });
+    }
+
+    void dispose() {
+        timer.dispose();
+    }
+
+    private Mono<Void> send(long due, LoadRecorder recorder) {
+        Operation operation = workload.next();
+
+        return client.execute(operation)
+                .doOnNext(status -> recorder.record(operation, due, status))
+                .onErrorResume(e -> {
+                    recorder.failed(operation, due, e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Collects latency and outcome per operation; safe to record into from any thread. */
+@Slf4j
+class LoadRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private final LongAdder dropped = new LongAdder();
+
+    LoadRecorder() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Recorder(SIGNIFICANT_DIGITS));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long due, int status) {
+        latencies.get(operation).recordValue(micros(due));
+        if (status >= 400) {
+            errors.get(operation).increment();
+        }
+    }
+
+    void failed(Operation operation, long due, Throwable error) {
+        latencies.get(operation).recordValue(micros(due));
+        errors.get(operation).increment();
+        log.debug("{} request failed", operation.key(), error);
+    }
+
+    /** Counts a request that was due but never sent because {@code max-in-flight} was exhausted. */
+    void dropped() {
+        dropped.increment();
+    }
+
+    /** Returns what was recorded since the previous call and starts a new interval. */
+    LoadReport interval(long elapsedNanos) {
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        Map<Operation, Long> failures = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, latencies.get(operation).getIntervalHistogram());
+            failures.put(operation, errors.get(operation).sumThenReset());
+        }
+
+        return new LoadReport(histograms, failures, dropped.sumThenReset(), elapsedNanos);
+    }
+
+    private static long micros(long due) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+    }
+
+}
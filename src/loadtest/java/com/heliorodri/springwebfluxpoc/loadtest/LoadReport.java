@@ -0,0 +1,100 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+class LoadReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<Operation, Histogram> histograms;
+
+    private final Map<Operation, Long> errors;
+
+    private final long dropped;
+
+    private final long elapsedNanos;
+
+    private final Histogram total = new Histogram(3);
+
+    LoadReport(Map<Operation, Histogram> histograms, Map<Operation, Long> errors, long dropped, long elapsedNanos) {
+        this.histograms = histograms;
+        this.errors = errors;
+        this.dropped = dropped;
+        this.elapsedNanos = elapsedNanos;
+        histograms.values().forEach(total::add);
+    }
+
+    Histogram total() {
+        return total;
+    }
+
+    long requests() {
+        return total.getTotalCount() + dropped;
+    }
+
+    long failures() {
+        return errors.values().stream().mapToLong(Long::longValue).sum() + dropped;
+    }
+
+    double throughput() {
+        return total.getTotalCount() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    double errorRate() {
+        return requests() == 0 ? 0 : failures() / (double) requests();
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-12s %9s %7s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        histograms.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                print(out, operation.key(), histogram, errors.get(operation));
+            }
+        });
+        print(out, "total", total, failures() - dropped);
+        out.printf("throughput %.1f req/s, error rate %.2f%%, dropped %d%n", throughput(), errorRate() * 100, dropped);
+    }
+
+    /** Returns a description of every threshold this run missed, or nothing when it passed. */
+    List<String> violations(LoadSettings settings) {
+        List<String> violations = new ArrayList<>();
+
+        check(violations, "p99", total.getValueAtPercentile(99), settings.getMaxP99());
+        check(violations, "p99.9", total.getValueAtPercentile(99.9), settings.getMaxP999());
+        if (errorRate() > settings.getMaxErrorRate()) {
+            violations.add(String.format("error rate %.2f%% above %.2f%%", errorRate() * 100, settings.getMaxErrorRate() * 100));
+        }
+        double expected = settings.getRate() * settings.getMinThroughputRatio();
+        if (throughput() < expected) {
+            violations.add(String.format("throughput %.1f req/s below %.1f req/s", throughput(), expected));
+        }
+
+        return violations;
+    }
+
+    private static void print(PrintStream out, String name, Histogram histogram, long errors) {
+        out.printf("%-12s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, histogram.getTotalCount(), errors,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static void check(List<String> violations, String percentile, long micros, Duration limit) {
+        if (micros > TimeUnit.NANOSECONDS.toMicros(limit.toNanos())) {
+            violations.add(String.format("%s latency %.1f ms above %d ms", percentile, millis(micros), limit.toMillis()));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import lombok.Getter;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+@Getter
+class LoadSettings {
+
+    private final String target;
+
+    private final String[] profiles;
+
+    private final int rate;
+
+    private final Duration warmUp;
+
+    private final Duration duration;
+
+    private final int maxInFlight;
+
+    private final Duration requestTimeout;
+
+    private final int seedMovies;
+
+    private final int batchSize;
+
+    private final Map<Operation, Integer> mix;
+
+    private final Duration maxP99;
+
+    private final Duration maxP999;
+
+    private final double maxErrorRate;
+
+    private final double minThroughputRatio;
+
+    private LoadSettings(Properties properties) {
+        target = properties.getProperty("loadtest.target", "");
+        profiles = StringUtils.commaDelimitedListToStringArray(properties.getProperty("loadtest.profiles"));
+        rate = Integer.parseInt(properties.getProperty("loadtest.rate"));
+        warmUp = duration(properties, "loadtest.warm-up");
+        duration = duration(properties, "loadtest.duration");
+        maxInFlight = Integer.parseInt(properties.getProperty("loadtest.max-in-flight"));
+        requestTimeout = duration(properties, "loadtest.request-timeout");
+        seedMovies = Integer.parseInt(properties.getProperty("loadtest.seed-movies"));
+        batchSize = Integer.parseInt(properties.getProperty("loadtest.batch-size"));
+        mix = mix(properties.getProperty("loadtest.mix"));
+        maxP99 = duration(properties, "loadtest.max-p99");
+        maxP999 = duration(properties, "loadtest.max-p999");
+        maxErrorRate = Double.parseDouble(properties.getProperty("loadtest.max-error-rate"));
+        minThroughputRatio = Double.parseDouble(properties.getProperty("loadtest.min-throughput-ratio"));
+    }
+
+    static LoadSettings load() {
+        Properties properties = new Properties();
+        try (InputStream defaults = LoadSettings.class.getResourceAsStream("/loadtest.properties")) {
+            properties.load(defaults);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("loadtest."))
+                .forEach(name -> properties.setProperty(name, System.getProperty(name)));
+
+        return new LoadSettings(properties);
+    }
+
+    boolean hasTarget() {
+        return StringUtils.hasText(target);
+    }
+
+    private static Duration duration(Properties properties, String name) {
+        return DurationStyle.detectAndParse(properties.getProperty(name));
+    }
+
+    private static Map<Operation, Integer> mix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : StringUtils.commaDelimitedListToStringArray(value)) {
+            String[] weight = entry.trim().split(":");
+            mix.put(Operation.of(weight[0]), Integer.parseInt(weight[1]));
+        }
+        return mix;
+    }
+
+}
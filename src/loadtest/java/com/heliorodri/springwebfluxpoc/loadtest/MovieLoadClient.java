@@ -0,0 +1,133 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class MovieLoadClient {
+
+    private static final TypeReference<List<Movie>> MOVIE_LIST = new TypeReference<List<Movie>>() {};
+
+    private static final String NAME_PREFIX = "loadtest-movie-";
+
+    private static final int PAGE_SIZE = 20;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final AtomicLong names = new AtomicLong();
+
+    private final ConnectionProvider connections;
+
+    private final HttpClient client;
+
+    private final int batchSize;
+
+    private volatile int[] ids = new int[0];
+
+    MovieLoadClient(String baseUrl, int maxConnections, Duration requestTimeout, int batchSize) {
+        this.connections = ConnectionProvider.builder("loadtest")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.client = HttpClient.create(connections)
+                .baseUrl(baseUrl)
+                .compress(true)
+                .responseTimeout(requestTimeout)
+                .headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON));
+        this.batchSize = batchSize;
+    }
+
+    /** Creates the movies that reads and updates pick their ids from. */
+    Mono<Integer> seed(int count) {
+        return Flux.range(0, (count + batchSize - 1) / batchSize)
+                .concatMap(batch -> client.post()
+                        .uri("/movies/batch")
+                        .send(Mono.fromCallable(() -> Unpooled.wrappedBuffer(json(movies(batchSize)))))
+                        .responseSingle((response, body) -> response.status().code() == 201
+                                ? body.asByteArray()
+                                : Mono.error(new IllegalStateException("Seeding failed with status " + response.status()))))
+                .concatMapIterable(this::ids)
+                .collectList()
+                .doOnNext(created -> ids = created.stream().mapToInt(Integer::intValue).toArray())
+                .map(List::size);
+    }
+
+    /** Sends one request of the given kind and completes with its status code. */
+    Mono<Integer> execute(Operation operation) {
+        switch (operation) {
+            case FIND_BY_ID:
+                return exchange(HttpMethod.GET, "/movies/" + anyId(), null);
+            case PAGE:
+                return exchange(HttpMethod.GET, "/movies?limit=" + PAGE_SIZE + "&after=" + (anyId() - 1), null);
+            case SEARCH:
+                return exchange(HttpMethod.GET, "/movies/search?prefix=true&limit=" + PAGE_SIZE + "&q=" + NAME_PREFIX
+                        + ThreadLocalRandom.current().nextInt(1, 10), null);
+            case CREATE:
+                return exchange(HttpMethod.POST, "/movies", newMovie());
+            case UPDATE:
+                return exchange(HttpMethod.PUT, "/movies/" + anyId(), newMovie());
+            case BATCH:
+                return exchange(HttpMethod.POST, "/movies/batch", movies(batchSize));
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+    }
+
+    void dispose() {
+        connections.dispose();
+    }
+
+    private Mono<Integer> exchange(HttpMethod method, String uri, Object body) {
+        HttpClient.RequestSender request = client.request(method).uri(uri);
+
+        return (body == null ? request : request.send(Mono.fromCallable(() -> Unpooled.wrappedBuffer(json(body)))))
+                .responseSingle((response, content) -> content.asByteArray()
+                        .then(Mono.just(response.status().code())));
+    }
+
+    private int anyId() {
+        int[] known = ids;
+        return known[ThreadLocalRandom.current().nextInt(known.length)];
+    }
+
+    private Movie newMovie() {
+        return Movie.builder().name(NAME_PREFIX + names.incrementAndGet()).build();
+    }
+
+    private List<Movie> movies(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> newMovie())
+                .collect(Collectors.toList());
+    }
+
+    private byte[] json(Object body) throws JsonProcessingException {
+        return mapper.writeValueAsBytes(body);
+    }
+
+    private List<Integer> ids(byte[] body) {
+        try {
+            return mapper.readValue(body, MOVIE_LIST).stream().map(Movie::getId).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw Exceptions.propagate(e);
+        }
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import com.heliorodri.springwebfluxpoc.SpringWebfluxPocApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Release load test: drives a mixed read/write/batch workload at a fixed arrival rate, prints throughput and
+ * latency percentiles of the measured phase, and exits non-zero when a threshold from {@code loadtest.properties}
+ * is missed.
+ *
+ * <pre>
+ * docker-compose up -d
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.options="-Dloadtest.rate=500 -Dloadtest.duration=120s"
+ * </pre>
+ */
+@Slf4j
+public class MovieLoadTest {
+
+    public static void main(String[] args) throws IOException {
+        LoadSettings settings = LoadSettings.load();
+
+        // started in-process without BlockHound, whose instrumentation would be measured along with the service
+        ConfigurableApplicationContext application = settings.hasTarget() ? null
+                : new SpringApplicationBuilder(SpringWebfluxPocApplication.class)
+                        .profiles(settings.getProfiles())
+                        .properties("server.port=0",
+                                "spring.config.location=" + shippedConfigLocation(),
+                                "spring.config.additional-location=classpath:/application-loadtest.yml")
+                        .run(args);
+        String target = application == null ? settings.getTarget()
+                : "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+
+        MovieLoadClient client = new MovieLoadClient(target, settings.getMaxInFlight(), settings.getRequestTimeout(),
+                settings.getBatchSize());
+        ArrivalRateGenerator generator = new ArrivalRateGenerator(client, new Workload(settings.getMix()),
+                settings.getRate(), settings.getMaxInFlight());
+        LoadRecorder recorder = new LoadRecorder();
+
+        List<String> violations;
+        try {
+            log.info("Seeded {} movies on {}", client.seed(settings.getSeedMovies()).block(), target);
+
+            log.info("Warming up at {} req/s for {}", settings.getRate(), settings.getWarmUp());
+            run(generator, recorder, settings.getWarmUp());
+
+            log.info("Measuring at {} req/s for {}", settings.getRate(), settings.getDuration());
+            LoadReport report = run(generator, recorder, settings.getDuration());
+
+            report.print(System.out);
+            write(report, new File("target/loadtest/latency.hgrm"));
+            violations = report.violations(settings);
+        } finally {
+            generator.dispose();
+            client.dispose();
+            if (application != null) {
+                application.close();
+            }
+        }
+
+        violations.forEach(violation -> System.out.println("FAILED: " + violation));
+        System.exit(violations.isEmpty() ? 0 : 1);
+    }
+
+    private static LoadReport run(ArrivalRateGenerator generator, LoadRecorder recorder, Duration duration) {
+        recorder.interval(0);
+        long start = System.nanoTime();
+        generator.run(duration, recorder).block();
+        return recorder.interval(System.nanoTime() - start);
+    }
+
+    /**
+     * The directory of the application.yml the service ships with. On the test classpath the one in
+     * src/test/resources comes first, which disables Flyway and the pool warm-up; measuring that would seed an
+     * unmigrated database and time a configuration that is never deployed.
+     */
+    private static String shippedConfigLocation() throws IOException {
+        Enumeration<URL> configs = MovieLoadTest.class.getClassLoader().getResources("application.yml");
+        while (configs.hasMoreElements()) {
+            String config = configs.nextElement().toString();
+            if (!config.contains("test-classes")) {
+                return config.substring(0, config.length() - "application.yml".length());
+            }
+        }
+        throw new IllegalStateException("The application.yml of src/main/resources is not on the classpath");
+    }
+
+    /** Keeps the full percentile distribution, in milliseconds, so runs can be compared or plotted. */
+    private static void write(LoadReport report, File file) throws FileNotFoundException {
+        file.getParentFile().mkdirs();
+        try (PrintStream out = new PrintStream(file)) {
+            report.total().outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.heliorodri.springwebfluxpoc.loadtest;
+
+import java.util.Arrays;
+
+enum Operation {
+
+    FIND_BY_ID("find-by-id"),
+    PAGE("page"),
+    SEARCH("search"),
+    CREATE("create"),
+    UPDATE("update"),
+    BATCH("batch");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Operation of(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + key));
+    }
+
+}
@@ -1,17 +1,18 @@
 package com.heliorodri.springwebfluxpoc;
 
+import com.heliorodri.springwebfluxpoc.config.BlockHoundInstaller;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import reactor.blockhound.BlockHound;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class SpringWebfluxPocApplication {
 
     public static void main(String[] args) {
-        BlockHound.install(builder ->
-                builder.allowBlockingCallsInside("java.util.UUID", "randomUUID"));
-
-        SpringApplication.run(SpringWebfluxPocApplication.class, args);
+        SpringApplication application = new SpringApplication(SpringWebfluxPocApplication.class);
+        application.addListeners(new BlockHoundInstaller());
+        application.run(args);
     }
 
 }
@@ -0,0 +1,142 @@
+package com.heliorodri.springwebfluxpoc.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+@Component
+public class MovieCache implements MeterBinder {
+
+    private final AsyncCache<Integer, Movie> cache;
+
+    // keyed by the identity of the cached instance, so bytes can never outlive the entry they were encoded from
+    private final Cache<Movie, byte[]> serialized;
+
+    private final Cache<Integer, Boolean> missing;
+
+    // bumped by every write, so a lookup that raced with a write never records its id as missing
+    private final AtomicLong writes = new AtomicLong();
+
+    public MovieCache(MovieProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMaximumSize())
+                .expireAfterWrite(properties.getCache().getExpireAfterWrite())
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        this.serialized = Caffeine.newBuilder()
+                .weakKeys()
+                .maximumSize(properties.getCache().getMaximumSize())
+                .executor(Runnable::run)
+                .build();
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(properties.getCache().getMissingMaximumSize())
+                .expireAfterWrite(properties.getCache().getMissingExpireAfterWrite())
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The movie with the given id, loading it on a miss. Ids the loader found no movie for are remembered for
+     * a while and answered as empty without calling the loader again.
+     */
+    public Mono<Movie> get(int id, IntFunction<Mono<Movie>> loader) {
+        return Mono.defer(() -> {
+            if (missing.getIfPresent(id) != null) {
+                return Mono.empty();
+            }
+
+            long writesBeforeLoad = writes.get();
+
+            // concurrent misses for the same id share the in-flight future; subscribers get a dependent
+            // stage so that a cancelled request does not cancel the load for everyone else
+            return Mono.fromFuture(cache.get(id, (key, executor) -> loader.apply(key).toFuture())
+                            .thenApply(Function.identity()))
+                    .switchIfEmpty(Mono.fromRunnable(() -> markMissing(id, writesBeforeLoad)));
+        });
+    }
+
+    public Movie getIfPresent(int id) {
+        CompletableFuture<Movie> movie = cache.getIfPresent(id);
+
+        return movie != null && movie.isDone() && !movie.isCompletedExceptionally() ? movie.join() : null;
+    }
+
+    /**
+     * The encoded form of a movie, reused for as long as that exact instance is the cached entry. Movies that
+     * are not the cached entry are encoded every time.
+     */
+    public byte[] serialized(Movie movie, Function<Movie, byte[]> encoder) {
+        if (movie.getId() == null || getIfPresent(movie.getId()) != movie) {
+            return encoder.apply(movie);
+        }
+
+        return serialized.get(movie, encoder);
+    }
+
+    public void put(Movie movie) {
+        writes.incrementAndGet();
+        missing.invalidate(movie.getId());
+        evictSerialized(movie.getId());
+        cache.put(movie.getId(), CompletableFuture.completedFuture(movie));
+    }
+
+    public void invalidate(int id) {
+        writes.incrementAndGet();
+        missing.invalidate(id);
+        evictSerialized(id);
+        cache.synchronous().invalidate(id);
+    }
+
+    private void markMissing(int id, long writesBeforeLoad) {
+        if (writes.get() == writesBeforeLoad) {
+            missing.put(id, Boolean.TRUE);
+        }
+    }
+
+    private void evictSerialized(int id) {
+        Movie current = getIfPresent(id);
+        if (current != null) {
+            serialized.invalidate(current);
+        }
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public CacheStats missingStats() {
+        return missing.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics(cache.synchronous(), "movie", Tags.empty()).bindTo(registry);
+        new CaffeineCacheMetrics(missing, "movie-missing", Tags.empty()).bindTo(registry);
+
+        FunctionCounter.builder("movie.cache.lookups.avoided", missing, known -> known.stats().hitCount())
+                .description("Lookups of missing movies answered without a query")
+                .register(registry);
+    }
+
+}
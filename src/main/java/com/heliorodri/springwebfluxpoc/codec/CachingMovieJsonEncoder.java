@@ -0,0 +1,94 @@
+package com.heliorodri.springwebfluxpoc.codec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes single movies from the bytes kept in {@link MovieCache}, wrapping them in a buffer instead of copying,
+ * and leaves streams and collections to the regular Jackson encoder. With caching off it only encodes, which
+ * still keeps JSON ahead of the binary encodings for clients that accept anything.
+ */
+public class CachingMovieJsonEncoder implements HttpMessageEncoder<Movie> {
+
+    private final Jackson2JsonEncoder delegate;
+
+    private final ObjectMapper objectMapper;
+
+    private final MovieCache cache;
+
+    private final boolean caching;
+
+    public CachingMovieJsonEncoder(ObjectMapper objectMapper, MovieCache cache, boolean caching) {
+        this.delegate = new Jackson2JsonEncoder(objectMapper);
+        this.objectMapper = objectMapper;
+        this.cache = cache;
+        this.caching = caching;
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return Movie.class.equals(elementType.resolve()) && delegate.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<? extends Movie> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(movie -> encodeValue(movie, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+
+        return delegate.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+    }
+
+    @Override
+    public DataBuffer encodeValue(Movie movie, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        return bufferFactory.wrap(caching ? cache.serialized(movie, this::toJson) : toJson(movie));
+    }
+
+    private byte[] toJson(Movie movie) {
+        try {
+            return objectMapper.writeValueAsBytes(movie);
+        } catch (JsonProcessingException e) {
+            throw new EncodingException("Could not encode movie " + movie.getId(), e);
+        }
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return delegate.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return delegate.getStreamingMediaTypes();
+    }
+
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType,
+                                              MediaType mediaType, ServerHttpRequest request,
+                                              ServerHttpResponse response) {
+        return delegate.getEncodeHints(actualType, elementType, mediaType, request, response);
+    }
+
+}
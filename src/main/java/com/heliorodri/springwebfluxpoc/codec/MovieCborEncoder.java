@@ -0,0 +1,54 @@
+package com.heliorodri.springwebfluxpoc.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+
+/**
+ * CBOR for movies and streams of movies. Spring's CBOR encoder only encodes single values, so a stream is
+ * written as an indefinite-length CBOR array, the binary counterpart of the JSON array: each movie is encoded
+ * as its own data item as it arrives, between the array's start byte and a break byte, rather than the whole
+ * stream being collected first.
+ */
+public class MovieCborEncoder extends Jackson2CborEncoder {
+
+    private static final byte INDEFINITE_ARRAY = (byte) 0x9F;
+
+    private static final byte BREAK = (byte) 0xFF;
+
+    public MovieCborEncoder(ObjectMapper mapper) {
+        super(mapper, APPLICATION_CBOR);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return Movie.class.equals(elementType.resolve()) && super.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                   ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono) {
+            return Mono.from(inputStream)
+                    .map(movie -> encodeValue(movie, bufferFactory, elementType, mimeType, hints))
+                    .flux();
+        }
+
+        return Flux.concat(
+                Mono.fromSupplier(() -> bufferFactory.wrap(new byte[]{INDEFINITE_ARRAY})),
+                Flux.from(inputStream).map(movie -> encodeValue(movie, bufferFactory, elementType, mimeType, hints)),
+                Mono.fromSupplier(() -> bufferFactory.wrap(new byte[]{BREAK})));
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.util.ClassUtils;
+import reactor.blockhound.BlockHound;
+
+/**
+ * Installs BlockHound once the environment is known, so production can turn it off with
+ * {@code movie.startup.block-hound=false}. BlockHound is not packaged in the production jar, hence the
+ * presence check before anything touches its classes.
+ */
+public class BlockHoundInstaller implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    private static final String BLOCK_HOUND = "reactor.blockhound.BlockHound";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        boolean enabled = event.getEnvironment().getProperty("movie.startup.block-hound", Boolean.class, true);
+
+        if (enabled && ClassUtils.isPresent(BLOCK_HOUND, getClass().getClassLoader())) {
+            Installer.install();
+        }
+    }
+
+    private static final class Installer {
+
+        private static void install() {
+            BlockHound.install(builder ->
+                    builder.allowBlockingCallsInside("java.util.UUID", "randomUUID"));
+        }
+
+    }
+
+}
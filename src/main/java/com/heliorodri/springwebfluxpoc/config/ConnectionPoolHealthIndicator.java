@@ -0,0 +1,50 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ConnectionPoolHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<ConnectionFactory> connectionFactories;
+
+    @Override
+    public Health health() {
+        Health.Builder health = Health.up();
+
+        ConnectionPools.of(connectionFactories).forEach(pool -> pool.getMetrics()
+                .ifPresent(metrics -> health.withDetail(pool.getMetadata().getName(), details(metrics))));
+
+        return health.build();
+    }
+
+    private static PoolDetails details(PoolMetrics metrics) {
+        return new PoolDetails(metrics.acquiredSize(), metrics.idleSize(), metrics.pendingAcquireSize(),
+                metrics.allocatedSize(), metrics.getMaxAllocatedSize(), metrics.getMaxPendingAcquireSize());
+    }
+
+    @Value
+    static class PoolDetails {
+
+        int acquired;
+
+        int idle;
+
+        int pending;
+
+        int allocated;
+
+        int maxAllocated;
+
+        int maxPending;
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConnectionPoolWarmUp implements ApplicationRunner {
+
+    private final ObjectProvider<ConnectionFactory> connectionFactories;
+
+    private final MovieProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!properties.getPool().isWarmUp()) {
+            return;
+        }
+
+        // runners complete before the application is marked ready, so the first requests do not pay
+        // for connection establishment
+        ConnectionPools.of(connectionFactories).forEach(this::warmUp);
+    }
+
+    private void warmUp(ConnectionPool pool) {
+        try {
+            Integer connections = pool.warmup().block(properties.getPool().getWarmUpTimeout());
+            log.info("Connection pool warmed up with {} connections", connections);
+        } catch (RuntimeException e) {
+            log.warn("Connection pool warm-up failed, connections will be created on demand", e);
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.stream.Stream;
+
+final class ConnectionPools {
+
+    private ConnectionPools() {
+    }
+
+    /**
+     * The pools behind the application's connection factories, looking through the read-replica router.
+     */
+    static Stream<ConnectionPool> of(ObjectProvider<ConnectionFactory> connectionFactories) {
+        return connectionFactories.orderedStream().flatMap(connectionFactory -> {
+            if (connectionFactory instanceof ConnectionPool) {
+                return Stream.of((ConnectionPool) connectionFactory);
+            }
+            if (connectionFactory instanceof ReadReplicaRoutingConnectionFactory) {
+                return ((ReadReplicaRoutingConnectionFactory) connectionFactory).getPools().stream();
+            }
+            return Stream.empty();
+        });
+    }
+
+}
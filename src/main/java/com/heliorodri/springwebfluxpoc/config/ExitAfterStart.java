@@ -0,0 +1,25 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exits once the application is ready. Running with {@code -XX:ArchiveClassesAtExit} and this flag records every
+ * class loaded during startup into a CDS archive that later starts can map instead of loading and verifying.
+ */
+@Component
+@ConditionalOnProperty(name = "movie.startup.exit-after-start", havingValue = "true")
+@Slf4j
+public class ExitAfterStart implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        log.info("Application ready, exiting as requested by movie.startup.exit-after-start");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+
+}
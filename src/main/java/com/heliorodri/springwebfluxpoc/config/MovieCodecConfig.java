@@ -0,0 +1,42 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.codec.CachingMovieJsonEncoder;
+import com.heliorodri.springwebfluxpoc.codec.MovieCborEncoder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+
+@Configuration
+@RequiredArgsConstructor
+public class MovieCodecConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    private final MovieCache cache;
+
+    private final MovieProperties properties;
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        // the builder bean is a prototype carrying the application's Jackson settings
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+
+        // movie writers are typed, so they are consulted before the default Jackson writer; JSON goes first
+        // so that clients accepting any media type keep getting JSON and only ask for CBOR explicitly
+        configurer.customCodecs().register(new CachingMovieJsonEncoder(objectMapper, cache,
+                properties.getCache().isSerializedPayloads()));
+        configurer.customCodecs().register(new MovieCborEncoder(cborMapper));
+        configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, APPLICATION_CBOR));
+    }
+
+}
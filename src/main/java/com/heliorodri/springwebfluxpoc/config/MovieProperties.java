@@ -0,0 +1,269 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("movie")
+public class MovieProperties {
+
+    private final Page page = new Page();
+
+    private final Stream stream = new Stream();
+
+    private final Cache cache = new Cache();
+
+    private final Batch batch = new Batch();
+
+    private final Pool pool = new Pool();
+
+    private final Lookup lookup = new Lookup();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final Search search = new Search();
+
+    private final Changes changes = new Changes();
+
+    private final Limits limits = new Limits();
+
+    private final Datasource datasource = new Datasource();
+
+    private final Web web = new Web();
+
+    private final Startup startup = new Startup();
+
+    @Data
+    public static class Page {
+
+        private int defaultLimit = 20;
+
+        private int maxLimit = 500;
+
+    }
+
+    @Data
+    public static class Stream {
+
+        private int fetchSize = 256;
+
+    }
+
+    @Data
+    public static class Cache {
+
+        private long maximumSize = 10_000;
+
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+        /**
+         * Ids known not to exist, answered with 404 without a query; 0 disables it.
+         */
+        private long missingMaximumSize = 100_000;
+
+        /**
+         * Kept short: an id stays unknown for this long after a write made outside this instance.
+         */
+        private Duration missingExpireAfterWrite = Duration.ofSeconds(30);
+
+        /**
+         * Keep the encoded JSON of cached movies so cache hits skip the encoder.
+         */
+        private boolean serializedPayloads = false;
+
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Rows per multi-row INSERT. Postgres caps a statement at 32767 bind parameters.
+         */
+        private int chunkSize = 500;
+
+    }
+
+    @Data
+    public static class Pool {
+
+        private boolean warmUp = true;
+
+        private Duration warmUpTimeout = Duration.ofSeconds(10);
+
+    }
+
+    @Data
+    public static class Lookup {
+
+        /**
+         * Merge concurrent lookups by id arriving within the window into a single query.
+         */
+        private boolean coalescing = false;
+
+        private Duration window = Duration.ofMillis(2);
+
+        private int maxBatchSize = 100;
+
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * Acknowledge unconditional updates once buffered and write them later, keeping only the latest update of
+         * each movie. Assumes this instance is the only writer; updates are lost if the process dies unflushed.
+         */
+        private boolean enabled = false;
+
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * Movies per UPDATE statement; this many pending movies also trigger a flush before the interval.
+         */
+        private int maxBatchSize = 500;
+
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    }
+
+    @Data
+    public static class Search {
+
+        /**
+         * Shortest term accepted for substring search; shorter terms cannot use the trigram index.
+         */
+        private int minContainsLength = 3;
+
+    }
+
+    @Data
+    public static class Changes {
+
+        /**
+         * Changes kept for subscribers resuming with Last-Event-ID.
+         */
+        private int historySize = 1000;
+
+        private int subscriberBuffer = 256;
+
+    }
+
+    @Data
+    public static class Limits {
+
+        private boolean enabled = false;
+
+        /**
+         * Header identifying the client; requests without it are keyed by their remote address.
+         */
+        private String clientHeader = "X-Client-Id";
+
+        /**
+         * Rate applied to each client on each endpoint, unless the endpoint has its own, e.g.
+         * "[POST /movies/batch]".
+         */
+        private Rate rate = new Rate();
+
+        private Map<String, Rate> endpoints = new HashMap<>();
+
+        private long maximumClients = 100_000;
+
+        private final Concurrency concurrency = new Concurrency();
+
+    }
+
+    @Data
+    public static class Rate {
+
+        private double requestsPerSecond = 50;
+
+        private int burst = 100;
+
+    }
+
+    @Data
+    public static class Concurrency {
+
+        private boolean enabled = true;
+
+        private int initialLimit = 50;
+
+        private int minLimit = 10;
+
+        private int maxLimit = 500;
+
+        /**
+         * How much slower than the long-term latency requests may get before the limit is lowered.
+         */
+        private double tolerance = 2.0;
+
+        private double smoothing = 0.2;
+
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+    }
+
+    @Data
+    public static class Datasource {
+
+        /**
+         * Read replicas of spring.r2dbc.url; when present, reads are spread over them and writes stay on the
+         * primary.
+         */
+        private List<Replica> replicas = new ArrayList<>();
+
+    }
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        /**
+         * Defaults to spring.r2dbc.username.
+         */
+        private String username;
+
+        /**
+         * Defaults to spring.r2dbc.password.
+         */
+        private String password;
+
+    }
+
+    @Data
+    public static class Web {
+
+        /**
+         * How /movies requests reach their handler: the annotated MovieController or the functional routes.
+         */
+        private Dispatch dispatch = Dispatch.ANNOTATED;
+
+    }
+
+    public enum Dispatch {
+        ANNOTATED, FUNCTIONAL
+    }
+
+    @Data
+    public static class Startup {
+
+        /**
+         * Install BlockHound when the application starts; read before the context exists, by BlockHoundInstaller.
+         */
+        private boolean blockHound = true;
+
+        /**
+         * Shut down as soon as the application is ready, e.g. for a Class Data Sharing training run.
+         */
+        private boolean exitAfterStart = false;
+
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.r2dbc.spi.ConnectionFactoryOptions.PASSWORD;
+import static io.r2dbc.spi.ConnectionFactoryOptions.USER;
+
+/**
+ * Replaces the auto-configured connection pool with a primary pool and one pool per replica, all built from
+ * the spring.r2dbc pool settings, as soon as a replica is configured.
+ */
+@Configuration
+@ConditionalOnProperty(name = "movie.datasource.replicas[0].url")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReadReplicaRoutingConnectionFactory connectionFactory(R2dbcProperties r2dbc, MovieProperties properties) {
+        ConnectionPool primary = pool("primary", r2dbc.getUrl(), r2dbc.getUsername(), r2dbc.getPassword(),
+                r2dbc.getPool());
+
+        List<MovieProperties.Replica> replicas = properties.getDatasource().getReplicas();
+        List<ConnectionPool> replicaPools = IntStream.range(0, replicas.size())
+                .mapToObj(i -> pool("replica-" + i, replicas.get(i).getUrl(),
+                        replicas.get(i).getUsername() == null ? r2dbc.getUsername() : replicas.get(i).getUsername(),
+                        replicas.get(i).getPassword() == null ? r2dbc.getPassword() : replicas.get(i).getPassword(),
+                        r2dbc.getPool()))
+                .collect(Collectors.toList());
+
+        return new ReadReplicaRoutingConnectionFactory(primary, replicaPools);
+    }
+
+    @Bean
+    public MeterBinder replicaConnectionPoolMetrics(ReadReplicaRoutingConnectionFactory connectionFactory) {
+        return registry -> connectionFactory.getPools().forEach(pool ->
+                new ConnectionPoolMetrics(pool, pool.getMetadata().getName(), Tags.empty()).bindTo(registry));
+    }
+
+    private static ConnectionPool pool(String name, String url, String username, String password,
+                                       R2dbcProperties.Pool pool) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (username != null) {
+            options.option(USER, username);
+        }
+        if (password != null) {
+            options.option(PASSWORD, password);
+        }
+
+        ConnectionPoolConfiguration.Builder configuration = ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .name(name)
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .validationDepth(pool.getValidationDepth());
+
+        if (pool.getMaxIdleTime() != null) {
+            configuration.maxIdleTime(pool.getMaxIdleTime());
+        }
+        if (pool.getMaxLifeTime() != null) {
+            configuration.maxLifeTime(pool.getMaxLifeTime());
+        }
+        if (pool.getMaxAcquireTime() != null) {
+            configuration.maxAcquireTime(pool.getMaxAcquireTime());
+        }
+        if (pool.getMaxCreateConnectionTime() != null) {
+            configuration.maxCreateConnectionTime(pool.getMaxCreateConnectionTime());
+        }
+        if (StringUtils.hasText(pool.getValidationQuery())) {
+            configuration.validationQuery(pool.getValidationQuery());
+        }
+
+        return new ConnectionPool(configuration.build());
+    }
+
+}
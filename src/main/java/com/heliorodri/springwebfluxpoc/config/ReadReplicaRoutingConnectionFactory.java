@@ -0,0 +1,71 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections requested from a {@link #readOnly()} context to the replicas, in turn, and everything else
+ * to the primary. Statements inside a transaction all run on the connection the transaction began with, so a
+ * transaction started outside a read-only context reads and writes on the primary.
+ */
+public class ReadReplicaRoutingConnectionFactory extends AbstractRoutingConnectionFactory implements DisposableBean {
+
+    private static final String READ_ONLY = ReadReplicaRoutingConnectionFactory.class.getName() + ".READ_ONLY";
+
+    private static final String PRIMARY = "primary";
+
+    private final List<ConnectionPool> pools = new ArrayList<>();
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReadReplicaRoutingConnectionFactory(ConnectionPool primary, List<ConnectionPool> replicas) {
+        Map<String, ConnectionPool> targets = new LinkedHashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            replicaKeys.add("replica-" + i);
+            targets.put("replica-" + i, replicas.get(i));
+        }
+
+        pools.addAll(targets.values());
+        setTargetConnectionFactories(targets);
+        setDefaultTargetConnectionFactory(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Context marking the queries of a pipeline as safe to run on a replica, for use with
+     * {@code contextWrite}; it has no effect when no replica is configured.
+     */
+    public static Context readOnly() {
+        return Context.of(READ_ONLY, Boolean.TRUE);
+    }
+
+    public List<ConnectionPool> getPools() {
+        return Collections.unmodifiableList(pools);
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return Mono.deferContextual(context -> context.hasKey(READ_ONLY) && !replicaKeys.isEmpty()
+                ? Mono.just(replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size())))
+                : Mono.empty());
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(ConnectionPool::dispose);
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Beans that must run at startup even with lazy initialization. Nothing depends on the Flyway initializer in
+     * an R2DBC application, so a lazy one would never migrate; a lazy warm-up would leave the pool cold.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FlywayMigrationInitializer.class,
+                ConnectionPoolWarmUp.class);
+    }
+
+}
@@ -1,31 +1,46 @@
 package com.heliorodri.springwebfluxpoc.controller;
 
 import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieChange;
+import com.heliorodri.springwebfluxpoc.domain.MovieIngestResult;
+import com.heliorodri.springwebfluxpoc.domain.MoviePage;
 import com.heliorodri.springwebfluxpoc.service.MovieService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
 
 import java.util.List;
+import java.util.Locale;
 
 import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
 
 @RestController
 @RequestMapping("movies")
+@ConditionalOnProperty(name = "movie.web.dispatch", havingValue = "annotated", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class MovieController {
@@ -33,16 +48,77 @@ public class MovieController {
     private final MovieService service;
 
     @GetMapping
+    public Mono<ResponseEntity<Flux<Movie>>> listAll(ServerWebExchange exchange) {
+        // the catalog version is read before the rows, both from the primary, so a concurrent write can only make
+        // the body newer than its ETag, which costs the client one extra full response but never serves stale data
+        return service.findCatalogVersion()
+                .map(MovieETags::ofCatalog)
+                .map(etag -> exchange.checkNotModified(etag)
+                        ? ResponseEntity.status(NOT_MODIFIED).eTag(etag).<Flux<Movie>>build()
+                        : ResponseEntity.ok().eTag(etag).body(service.findAll()));
+    }
+
+    @GetMapping(produces = {APPLICATION_NDJSON_VALUE, TEXT_EVENT_STREAM_VALUE})
     @ResponseStatus(OK)
-    public Flux<Movie> listAll() {
-        return service.findAll();
+    public Flux<Movie> stream() {
+        return service.stream();
     }
 
-    @GetMapping("/{id}")
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<MoviePage>> findPage(@RequestParam(defaultValue = "0") int after,
+                                                    @RequestParam Integer limit) {
+        return service.findPage(after, limit)
+                .map(page -> ResponseEntity.ok().eTag(MovieETags.of(page)).body(page));
+    }
+
+    @GetMapping(params = {"after", "!limit"})
+    public Mono<ResponseEntity<MoviePage>> findPageAfter(@RequestParam int after) {
+        return findPage(after, null);
+    }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(OK)
+    public Flux<Movie> findAllById(@RequestParam List<Integer> ids) {
+        return service.findAllById(ids);
+    }
+
+    @GetMapping("/search")
     @ResponseStatus(OK)
-    public Mono<Movie> findById(@PathVariable int id){
+    public Flux<Movie> search(@RequestParam String q,
+                              @RequestParam(defaultValue = "false") boolean prefix,
+                              @RequestParam(required = false) Integer limit) {
+        return service.search(q, prefix, limit);
+    }
+
+    @GetMapping(value = "/changes", produces = TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<MovieChange>> changes(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return service.changes(lastEventId)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(String.valueOf(change.getId()))
+                        .event(change.getType().name().toLowerCase(Locale.ROOT))
+                        .build());
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Movie>> findById(@PathVariable int id, ServerWebExchange exchange){
         log.info("Looking for movie with id {}", id);
-        return service.findById(id);
+
+        if (exchange.getRequest().getHeaders().getIfNoneMatch().isEmpty()){
+            return findWithETag(id);
+        }
+
+        // revalidation is answered from the cached entry or the version column, without loading the movie
+        return service.findVersion(id)
+                .map(MovieETags::of)
+                .flatMap(etag -> exchange.checkNotModified(etag)
+                        ? Mono.just(ResponseEntity.status(NOT_MODIFIED).eTag(etag).<Movie>build())
+                        : findWithETag(id));
+    }
+
+    private Mono<ResponseEntity<Movie>> findWithETag(int id){
+        return service.findById(id)
+                .map(movie -> ResponseEntity.ok().eTag(MovieETags.of(movie)).body(movie));
     }
 
     @PostMapping
@@ -58,12 +134,24 @@ public class MovieController {
         return service.saveAll(movies);
     }
 
+    @PostMapping(value = "/ingest", consumes = APPLICATION_NDJSON_VALUE, produces = APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(CREATED)
+    public Flux<MovieIngestResult> ingest(@RequestBody Flux<Movie> movies) {
+        return service.ingest(movies);
+    }
+
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public Mono<Void> update(@PathVariable int id, @Valid @RequestBody Movie movie){
+    public Mono<Void> update(@PathVariable int id, @RequestHeader HttpHeaders headers,
+                             @Valid @RequestBody Movie movie){
         log.info("updating movie with id: {}", id);
 
-        return service.update(id, movie);
+        List<String> ifMatch = headers.getIfMatch();
+        if (ifMatch.isEmpty() || MovieETags.isWildcard(ifMatch)){
+            return service.update(id, movie);
+        }
+
+        return service.update(id, movie, MovieETags.versions(ifMatch));
     }
 
     @DeleteMapping("/{id}")
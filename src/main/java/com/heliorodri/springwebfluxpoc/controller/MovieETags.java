@@ -0,0 +1,57 @@
+package com.heliorodri.springwebfluxpoc.controller;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MoviePage;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+final class MovieETags {
+
+    private MovieETags() {
+    }
+
+    static String of(Movie movie) {
+        return of(movie.getVersion());
+    }
+
+    static String of(Long version) {
+        return quote(String.valueOf(version == null ? 0L : version));
+    }
+
+    static String ofCatalog(String catalogVersion) {
+        return quote(catalogVersion);
+    }
+
+    static String of(MoviePage page) {
+        long hash = 1;
+        for (Movie movie : page.getContent()) {
+            hash = 31 * hash + movie.getId();
+            hash = 31 * hash + (movie.getVersion() == null ? 0L : movie.getVersion());
+        }
+
+        return quote(Long.toHexString(hash));
+    }
+
+    static boolean isWildcard(List<String> ifMatch) {
+        return ifMatch.contains("*");
+    }
+
+    /**
+     * Versions named by an If-Match header. Weak and foreign tags are dropped, as they can never match
+     * under the strong comparison If-Match requires.
+     */
+    static List<Long> versions(List<String> ifMatch) {
+        return ifMatch.stream()
+                .filter(tag -> tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\""))
+                .map(tag -> tag.substring(1, tag.length() - 1))
+                .filter(tag -> tag.chars().allMatch(Character::isDigit))
+                .map(Long::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+}
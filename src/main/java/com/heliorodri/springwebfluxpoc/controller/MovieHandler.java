@@ -0,0 +1,243 @@
+package com.heliorodri.springwebfluxpoc.controller;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieChange;
+import com.heliorodri.springwebfluxpoc.domain.MovieIngestResult;
+import com.heliorodri.springwebfluxpoc.service.MovieService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+/**
+ * Functional counterpart of {@link MovieController}, with the same statuses, headers and error bodies.
+ * Arguments are read and validated by hand instead of through argument resolvers and {@code @Valid}.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class MovieHandler {
+
+    private static final ParameterizedTypeReference<List<Movie>> MOVIE_LIST = new ParameterizedTypeReference<List<Movie>>() {};
+
+    private static final ParameterizedTypeReference<ServerSentEvent<MovieChange>> CHANGE_EVENT =
+            new ParameterizedTypeReference<ServerSentEvent<MovieChange>>() {};
+
+    private static final List<MediaType> PRODUCIBLE = Arrays.asList(APPLICATION_JSON, APPLICATION_CBOR);
+
+    private static final List<MediaType> CHANGE_STREAM = Collections.singletonList(MediaType.TEXT_EVENT_STREAM);
+
+    private final MovieService service;
+
+    public Mono<ServerResponse> listAll(ServerRequest request) {
+        return service.findCatalogVersion()
+                .map(MovieETags::ofCatalog)
+                .flatMap(etag -> request.exchange().checkNotModified(etag)
+                        ? ServerResponse.status(NOT_MODIFIED).eTag(etag).build()
+                        : ServerResponse.ok().eTag(etag).contentType(negotiate(request)).body(service.findAll(), Movie.class));
+    }
+
+    public Mono<ServerResponse> stream(ServerRequest request) {
+        MediaType contentType = request.headers().accept().contains(APPLICATION_NDJSON)
+                ? APPLICATION_NDJSON
+                : MediaType.TEXT_EVENT_STREAM;
+
+        return ServerResponse.ok().contentType(contentType).body(service.stream(), Movie.class);
+    }
+
+    public Mono<ServerResponse> findPage(ServerRequest request) {
+        int after = request.queryParam("after").map(value -> parseInt("after", value)).orElse(0);
+        Integer limit = request.queryParam("limit").map(value -> parseInt("limit", value)).orElse(null);
+
+        MediaType contentType = negotiate(request);
+
+        return service.findPage(after, limit)
+                .flatMap(page -> ServerResponse.ok().eTag(MovieETags.of(page)).contentType(contentType).bodyValue(page));
+    }
+
+    public Mono<ServerResponse> findAllById(ServerRequest request) {
+        List<Integer> ids = request.queryParams().get("ids").stream()
+                .flatMap(value -> Arrays.stream(StringUtils.commaDelimitedListToStringArray(value)))
+                .map(id -> parseInt("ids", id.trim()))
+                .collect(Collectors.toList());
+
+        return ServerResponse.ok().contentType(negotiate(request)).body(service.findAllById(ids), Movie.class);
+    }
+
+    public Mono<ServerResponse> search(ServerRequest request) {
+        String query = request.queryParam("q").orElseThrow(() -> missingParameter("q"));
+        boolean prefix = request.queryParam("prefix").map(Boolean::parseBoolean).orElse(false);
+        Integer limit = request.queryParam("limit").map(value -> parseInt("limit", value)).orElse(null);
+
+        return ServerResponse.ok().contentType(negotiate(request)).body(service.search(query, prefix, limit), Movie.class);
+    }
+
+    public Mono<ServerResponse> changes(ServerRequest request) {
+        MediaType contentType = negotiate(request, CHANGE_STREAM);
+        String lastEventHeader = request.headers().firstHeader("Last-Event-ID");
+        Long lastEventId = lastEventHeader == null ? null : parseLong("Last-Event-ID", lastEventHeader);
+
+        Flux<ServerSentEvent<MovieChange>> events = service.changes(lastEventId)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(String.valueOf(change.getId()))
+                        .event(change.getType().name().toLowerCase(Locale.ROOT))
+                        .build());
+
+        return ServerResponse.ok().contentType(contentType).body(events, CHANGE_EVENT);
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        int id = id(request);
+        log.info("Looking for movie with id {}", id);
+
+        MediaType contentType = negotiate(request);
+
+        if (request.headers().asHttpHeaders().getIfNoneMatch().isEmpty()) {
+            return findWithETag(id, contentType);
+        }
+
+        return service.findVersion(id)
+                .map(MovieETags::of)
+                .flatMap(etag -> request.exchange().checkNotModified(etag)
+                        ? ServerResponse.status(NOT_MODIFIED).eTag(etag).build()
+                        : findWithETag(id, contentType));
+    }
+
+    private Mono<ServerResponse> findWithETag(int id, MediaType contentType) {
+        return service.findById(id)
+                .flatMap(movie -> ServerResponse.ok().eTag(MovieETags.of(movie)).contentType(contentType).bodyValue(movie));
+    }
+
+    public Mono<ServerResponse> save(ServerRequest request) {
+        MediaType contentType = negotiate(request);
+
+        return body(request)
+                .doOnNext(movie -> log.info("Saving movie: {}", movie.getName()))
+                .flatMap(service::save)
+                .flatMap(movie -> ServerResponse.status(CREATED).contentType(contentType).bodyValue(movie));
+    }
+
+    public Mono<ServerResponse> saveBatch(ServerRequest request) {
+        Flux<Movie> saved = request.bodyToMono(MOVIE_LIST)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")))
+                .flatMapMany(service::saveAll);
+
+        return ServerResponse.status(CREATED).contentType(negotiate(request)).body(saved, Movie.class);
+    }
+
+    public Mono<ServerResponse> ingest(ServerRequest request) {
+        return ServerResponse.status(CREATED)
+                .contentType(APPLICATION_NDJSON)
+                .body(service.ingest(request.bodyToFlux(Movie.class)), MovieIngestResult.class);
+    }
+
+    public Mono<ServerResponse> update(ServerRequest request) {
+        int id = id(request);
+        log.info("updating movie with id: {}", id);
+
+        List<String> ifMatch = request.headers().asHttpHeaders().getIfMatch();
+
+        return body(request)
+                .flatMap(movie -> ifMatch.isEmpty() || MovieETags.isWildcard(ifMatch)
+                        ? service.update(id, movie)
+                        : service.update(id, movie, MovieETags.versions(ifMatch)))
+                .then(ServerResponse.ok().build());
+    }
+
+    public Mono<ServerResponse> delete(ServerRequest request) {
+        int id = id(request);
+        log.info("deleting movie with id: {}", id);
+
+        return service.delete(id).then(ServerResponse.noContent().build());
+    }
+
+    /**
+     * Router functions do not negotiate the response type, so the Accept header is matched here against the
+     * types the movie writers produce; JSON wins for wildcards, as it does for the controller.
+     */
+    private static MediaType negotiate(ServerRequest request) {
+        return negotiate(request, PRODUCIBLE);
+    }
+
+    // the first producible type answers requests without an Accept header, as the annotated mappings do
+    private static MediaType negotiate(ServerRequest request, List<MediaType> producibleTypes) {
+        List<MediaType> accepted = new ArrayList<>(request.headers().accept());
+        if (accepted.isEmpty()) {
+            return producibleTypes.get(0);
+        }
+
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType type : accepted) {
+            for (MediaType producible : producibleTypes) {
+                if (type.isCompatibleWith(producible)) {
+                    return producible;
+                }
+            }
+        }
+        throw new NotAcceptableStatusException(producibleTypes);
+    }
+
+    private static Mono<Movie> body(ServerRequest request) {
+        return request.bodyToMono(Movie.class)
+                .switchIfEmpty(Mono.error(() -> new ServerWebInputException("No request body")))
+                .doOnNext(MovieHandler::validate);
+    }
+
+    /** The constraints declared on {@link Movie}, checked without the bean validation machinery. */
+    static void validate(Movie movie) {
+        if (!StringUtils.hasText(movie.getName())) {
+            throw new ResponseStatusException(BAD_REQUEST, "The name of the movie cannot be blank");
+        }
+        if (movie.getName().length() > Movie.MAX_NAME_LENGTH) {
+            throw new ResponseStatusException(BAD_REQUEST,
+                    "The name of the movie cannot be longer than " + Movie.MAX_NAME_LENGTH + " characters");
+        }
+    }
+
+    private static int id(ServerRequest request) {
+        return parseInt("id", request.pathVariable("id"));
+    }
+
+    private static int parseInt(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid value for '" + name + "': " + value);
+        }
+    }
+
+    private static long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid value for '" + name + "': " + value);
+        }
+    }
+
+    private static ServerWebInputException missingParameter(String name) {
+        return new ServerWebInputException("Required query parameter '" + name + "' is not present");
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.heliorodri.springwebfluxpoc.controller;
+
+import com.heliorodri.springwebfluxpoc.service.MovieService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicate;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RequestPredicates.queryParam;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The /movies routes of {@link MovieController} as router functions, used instead of the controller when
+ * {@code movie.web.dispatch=functional}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "movie.web.dispatch", havingValue = "functional")
+public class MovieRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> movieRoutes(MovieService service) {
+        return routes(new MovieHandler(service));
+    }
+
+    // more specific routes come first, mirroring the params and produces conditions of the controller
+    public static RouterFunction<ServerResponse> routes(MovieHandler handler) {
+        return route()
+                .path("/movies", movies -> movies
+                        .GET("/changes", handler::changes)
+                        .GET("/search", handler::search)
+                        .GET("/{id}", handler::findById)
+                        .PUT("/{id}", handler::update)
+                        .DELETE("/{id}", handler::delete)
+                        .POST("/batch", handler::saveBatch)
+                        .POST("/ingest", contentType(APPLICATION_NDJSON), handler::ingest)
+                        .GET("", queryParam("limit", limit -> true), handler::findPage)
+                        .GET("", queryParam("after", after -> true), handler::findPage)
+                        .GET("", queryParam("ids", ids -> true), handler::findAllById)
+                        .GET("", streamRequested(), handler::stream)
+                        .GET("", handler::listAll)
+                        .POST("", handler::save))
+                .build();
+    }
+
+    // unlike RequestPredicates.accept, a wildcard Accept header does not select the stream
+    private static RequestPredicate streamRequested() {
+        return request -> request.headers().accept().stream()
+                .anyMatch(type -> isStream(type, APPLICATION_NDJSON) || isStream(type, TEXT_EVENT_STREAM));
+    }
+
+    private static boolean isStream(MediaType accepted, MediaType stream) {
+        return accepted.equalsTypeAndSubtype(stream);
+    }
+
+}
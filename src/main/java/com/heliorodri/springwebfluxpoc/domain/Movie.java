@@ -6,10 +6,12 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.With;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Table;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 @Data
 @AllArgsConstructor
@@ -19,10 +21,17 @@ import javax.validation.constraints.NotNull;
 @Table("movie")
 public class Movie {
 
+    /** The width of the name column. */
+    public static final int MAX_NAME_LENGTH = 255;
+
     @Id
     private Integer id;
 
     @NotBlank(message = "The name of the movie cannot be blank")
+    @Size(max = MAX_NAME_LENGTH, message = "The name of the movie cannot be longer than " + MAX_NAME_LENGTH + " characters")
     private String name;
 
+    @Version
+    private Long version;
+
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.heliorodri.springwebfluxpoc.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What identifies the state of the whole catalog: every insert moves the count and the highest id, every
+ * update the sum of versions, and a delete the count.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MovieCatalogVersion {
+
+    private long count;
+
+    private long maxId;
+
+    private long versionSum;
+
+}
@@ -0,0 +1,29 @@
+package com.heliorodri.springwebfluxpoc.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MovieChange {
+
+    private long id;
+
+    private Type type;
+
+    private int movieId;
+
+    private Movie movie;
+
+    public enum Type {
+        CREATED, UPDATED, DELETED,
+
+        /** Changes a subscriber asked to resume after were lost; it has to reload what it holds. */
+        RESET
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.heliorodri.springwebfluxpoc.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MovieIngestResult {
+
+    private long chunk;
+
+    private int saved;
+
+    private List<Integer> ids;
+
+}
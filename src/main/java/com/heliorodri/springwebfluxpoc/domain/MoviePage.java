@@ -0,0 +1,26 @@
+package com.heliorodri.springwebfluxpoc.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class MoviePage {
+
+    private List<Movie> content;
+
+    private Integer next;
+
+    public static MoviePage of(List<Movie> content, int limit) {
+        Integer next = content.size() == limit ? content.get(content.size() - 1).getId() : null;
+
+        return new MoviePage(content, next);
+    }
+
+}
@@ -1,11 +1,14 @@
 package com.heliorodri.springwebfluxpoc.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.autoconfigure.web.reactive.error.AbstractErrorWebExceptionHandler;
 import org.springframework.boot.web.error.ErrorAttributeOptions;
 import org.springframework.boot.web.reactive.error.ErrorAttributes;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -15,10 +18,14 @@ import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.springframework.boot.web.error.ErrorAttributeOptions.Include.STACK_TRACE;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
@@ -28,10 +35,16 @@ import static org.springframework.http.MediaType.APPLICATION_JSON;
 @Component
 public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
 
+    private final Map<Integer, ErrorTemplate> templates = new ConcurrentHashMap<>();
+
+    private final MeterRegistry meterRegistry;
+
     public GlobalExceptionHandler(ErrorAttributes errorAttributes, WebProperties.Resources resources,
-                                  ApplicationContext applicationContext, ServerCodecConfigurer codecConfigurer) {
+                                  ApplicationContext applicationContext, ServerCodecConfigurer codecConfigurer,
+                                  MeterRegistry meterRegistry) {
         super(errorAttributes, resources, applicationContext);
         this.setMessageWriters(codecConfigurer.getWriters());
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
@@ -40,10 +53,24 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
     }
 
     private Mono<ServerResponse> formatErrorResponse(ServerRequest request){
-        ErrorAttributeOptions errorAttributeOptions = isTraceEnabled(request.uri().getQuery()) ? ErrorAttributeOptions.of(STACK_TRACE) : ErrorAttributeOptions.defaults();
+        boolean traceEnabled = isTraceEnabled(request.exchange().getRequest().getURI().getRawQuery());
+        Throwable error = getError(request);
+
+        // expected statuses such as 404 skip the generic attribute resolution and reuse a per-status template
+        if (!traceEnabled && error instanceof ResponseStatusException) {
+            ErrorTemplate template = template(((ResponseStatusException) error).getRawStatusCode());
+            template.count();
+
+            return ServerResponse.status(template.status)
+                    .contentType(APPLICATION_JSON)
+                    .body(BodyInserters.fromValue(template.render(request)));
+        }
+
+        ErrorAttributeOptions errorAttributeOptions = traceEnabled ? ErrorAttributeOptions.of(STACK_TRACE) : ErrorAttributeOptions.defaults();
         Map<String, Object> errorAttributes = getErrorAttributes(request, errorAttributeOptions);
 
         int status = (int) Optional.ofNullable(errorAttributes.get("status")).orElse(INTERNAL_SERVER_ERROR.value());
+        template(status).count();
 
         return ServerResponse.status(status)
                 .contentType(APPLICATION_JSON)
@@ -54,4 +81,46 @@ public class GlobalExceptionHandler extends AbstractErrorWebExceptionHandler {
         return StringUtils.hasText(url) && url.contains("trace=true");
     }
 
+    private ErrorTemplate template(int status) {
+        return templates.computeIfAbsent(status, code -> new ErrorTemplate(code,
+                meterRegistry.counter("movie.errors", "status", String.valueOf(code))));
+    }
+
+    /**
+     * The parts of an error body that only depend on the status, together with the counter for that status.
+     * The rendered body has the same attributes as the default one: timestamp, path, status, error, requestId.
+     */
+    private static final class ErrorTemplate {
+
+        private final int status;
+
+        private final String error;
+
+        private final Counter counter;
+
+        private ErrorTemplate(int status, Counter counter) {
+            HttpStatus httpStatus = HttpStatus.resolve(status);
+
+            this.status = status;
+            this.error = httpStatus == null ? String.valueOf(status) : httpStatus.getReasonPhrase();
+            this.counter = counter;
+        }
+
+        private void count() {
+            counter.increment();
+        }
+
+        private Map<String, Object> render(ServerRequest request) {
+            Map<String, Object> body = new LinkedHashMap<>(8);
+            body.put("timestamp", new Date());
+            body.put("path", request.path());
+            body.put("status", status);
+            body.put("error", error);
+            body.put("requestId", request.exchange().getRequest().getId());
+
+            return body;
+        }
+
+    }
+
 }
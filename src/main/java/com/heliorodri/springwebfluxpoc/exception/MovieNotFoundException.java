@@ -0,0 +1,40 @@
+package com.heliorodri.springwebfluxpoc.exception;
+
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+/**
+ * Raised for every lookup of a missing id, which is ordinary traffic rather than a fault, so it skips
+ * capturing a stack trace: filling one in is most of the cost of creating an exception.
+ */
+public class MovieNotFoundException extends ResponseStatusException {
+
+    private final int id;
+
+    // the reason is only built when something reads it; the error handler answers 404s from a template
+    public MovieNotFoundException(int id) {
+        super(NOT_FOUND);
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getReason() {
+        return "Movie with id " + id + " not found";
+    }
+
+    @Override
+    public String getMessage() {
+        return getStatus() + " \"" + getReason() + "\"";
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+}
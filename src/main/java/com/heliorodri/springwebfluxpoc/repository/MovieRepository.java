@@ -1,11 +1,38 @@
 package com.heliorodri.springwebfluxpoc.repository;
 
 import com.heliorodri.springwebfluxpoc.domain.Movie;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-public interface MovieRepository extends ReactiveCrudRepository<Movie, Integer> {
+public interface MovieRepository extends ReactiveCrudRepository<Movie, Integer>, MovieRepositoryCustom {
 
     Mono<Movie> findById(int id);
 
-}
\ No newline at end of file
+    @Query("SELECT * FROM movie WHERE id > :after ORDER BY id LIMIT :limit")
+    Flux<Movie> findPageAfter(int after, int limit);
+
+    @Query("SELECT version FROM movie WHERE id = :id")
+    Mono<Long> findVersionById(int id);
+
+    @Query("SELECT * FROM movie WHERE id = ANY(:ids)")
+    Flux<Movie> findAllByIds(Integer[] ids);
+
+    @Query("SELECT * FROM movie WHERE lower(name) LIKE :pattern ORDER BY name LIMIT :limit")
+    Flux<Movie> searchByName(String pattern, int limit);
+
+    @Modifying
+    @Query("UPDATE movie SET name = :name, version = version + 1 WHERE id = :id")
+    Mono<Integer> updateName(int id, String name);
+
+    @Modifying
+    @Query("UPDATE movie SET name = :name, version = version + 1 WHERE id = :id AND version = ANY(:versions)")
+    Mono<Integer> updateNameIfVersion(int id, String name, Long[] versions);
+
+    @Modifying
+    @Query("DELETE FROM movie WHERE id = :id")
+    Mono<Integer> removeById(int id);
+
+}
@@ -0,0 +1,24 @@
+package com.heliorodri.springwebfluxpoc.repository;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieCatalogVersion;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface MovieRepositoryCustom {
+
+    Flux<Movie> streamAll();
+
+    Flux<Movie> insertAll(List<Movie> movies);
+
+    Mono<MovieCatalogVersion> findCatalogVersion();
+
+    /**
+     * Writes the name of every movie in a single statement. Versions only move forward: each row gets the
+     * movie's version or its current version plus one, whichever is higher.
+     */
+    Mono<Integer> updateNames(List<Movie> movies);
+
+}
@@ -0,0 +1,86 @@
+package com.heliorodri.springwebfluxpoc.repository;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieCatalogVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+@RequiredArgsConstructor
+public class MovieRepositoryCustomImpl implements MovieRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    private final MovieProperties properties;
+
+    @Override
+    public Flux<Movie> streamAll() {
+        return template.getDatabaseClient()
+                .sql("SELECT * FROM movie ORDER BY id")
+                .filter(statement -> statement.fetchSize(properties.getStream().getFetchSize()))
+                .map((row, metadata) -> template.getConverter().read(Movie.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Flux<Movie> insertAll(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return Flux.empty();
+        }
+
+        StringJoiner sql = new StringJoiner(", ", "INSERT INTO movie (name) VALUES ", " RETURNING *");
+        for (int i = 0; i < movies.size(); i++) {
+            sql.add("(:name" + i + ")");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString());
+        for (int i = 0; i < movies.size(); i++) {
+            spec = spec.bind("name" + i, movies.get(i).getName());
+        }
+
+        return spec.map((row, metadata) -> template.getConverter().read(Movie.class, row, metadata))
+                .all();
+    }
+
+    @Override
+    public Mono<MovieCatalogVersion> findCatalogVersion() {
+        // every column is cast to BIGINT, as sum() of a BIGINT is NUMERIC on PostgreSQL
+        return template.getDatabaseClient()
+                .sql("SELECT CAST(count(*) AS BIGINT) AS total, CAST(coalesce(max(id), 0) AS BIGINT) AS max_id, "
+                        + "CAST(coalesce(sum(version), 0) AS BIGINT) AS version_sum FROM movie")
+                .map(row -> new MovieCatalogVersion(row.get("total", Long.class), row.get("max_id", Long.class),
+                        row.get("version_sum", Long.class)))
+                .one();
+    }
+
+    @Override
+    public Mono<Integer> updateNames(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return Mono.just(0);
+        }
+
+        StringJoiner sql = new StringJoiner(", ",
+                "UPDATE movie AS m SET name = v.name, version = GREATEST(m.version + 1, v.version) FROM (VALUES ",
+                ") AS v (id, name, version) WHERE m.id = v.id");
+        for (int i = 0; i < movies.size(); i++) {
+            sql.add("(:id" + i + ", :name" + i + ", :version" + i + ")");
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = template.getDatabaseClient().sql(sql.toString());
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            spec = spec.bind("id" + i, movie.getId())
+                    .bind("name" + i, movie.getName())
+                    .bind("version" + i, movie.getVersion() == null ? 0L : movie.getVersion());
+        }
+
+        return spec.fetch().rowsUpdated();
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.heliorodri.springwebfluxpoc.service;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class MovieBatchLoader implements DisposableBean {
+
+    private final MovieRepository repository;
+
+    private final Disposable subscription;
+
+    private FluxSink<Lookup> lookups;
+
+    public MovieBatchLoader(MovieRepository repository, MovieProperties properties) {
+        this.repository = repository;
+
+        MovieProperties.Lookup config = properties.getLookup();
+        this.subscription = Flux.<Lookup>create(sink -> this.lookups = sink)
+                .bufferTimeout(config.getMaxBatchSize(), config.getWindow())
+                .flatMap(this::load)
+                .subscribe();
+    }
+
+    public Mono<Movie> load(int id) {
+        return Mono.defer(() -> {
+            Lookup lookup = new Lookup(id, Sinks.one());
+            lookups.next(lookup);
+
+            return lookup.result.asMono();
+        });
+    }
+
+    private Mono<Void> load(List<Lookup> batch) {
+        Integer[] ids = batch.stream()
+                .map(lookup -> lookup.id)
+                .distinct()
+                .toArray(Integer[]::new);
+
+        return repository.findAllByIds(ids)
+                .collectMap(Movie::getId)
+                .doOnNext(movies -> batch.forEach(lookup -> lookup.complete(movies)))
+                .doOnError(e -> batch.forEach(lookup -> lookup.result.tryEmitError(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    @Override
+    public void destroy() {
+        lookups.complete();
+        subscription.dispose();
+    }
+
+    @RequiredArgsConstructor
+    private static class Lookup {
+
+        private final int id;
+
+        private final Sinks.One<Movie> result;
+
+        private void complete(Map<Integer, Movie> movies) {
+            Movie movie = movies.get(id);
+
+            if (movie == null) {
+                result.tryEmitEmpty();
+            } else {
+                result.tryEmitValue(movie);
+            }
+        }
+
+    }
+
+}
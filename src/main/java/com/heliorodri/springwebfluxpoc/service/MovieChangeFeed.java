@@ -0,0 +1,95 @@
+package com.heliorodri.springwebfluxpoc.service;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieChange;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@Component
+@Slf4j
+public class MovieChangeFeed {
+
+    private final Sinks.Many<MovieChange> sink;
+
+    private final int historySize;
+
+    private final int subscriberBuffer;
+
+    private final long start;
+
+    private long sequence;
+
+    // ids start at the process start time, so ids handed out by an earlier process or another instance
+    // fall outside this one's range instead of being mistaken for its own
+    @Autowired
+    public MovieChangeFeed(MovieProperties properties) {
+        this(properties, System.currentTimeMillis() * 1000);
+    }
+
+    MovieChangeFeed(MovieProperties properties, long start) {
+        this.historySize = properties.getChanges().getHistorySize();
+        this.sink = Sinks.many().replay().limit(historySize);
+        this.subscriberBuffer = properties.getChanges().getSubscriberBuffer();
+        this.start = start;
+        this.sequence = start;
+    }
+
+    public void created(Movie movie) {
+        publish(MovieChange.Type.CREATED, movie.getId(), movie);
+    }
+
+    public void updated(Movie movie) {
+        publish(MovieChange.Type.UPDATED, movie.getId(), movie);
+    }
+
+    public void deleted(int movieId) {
+        publish(MovieChange.Type.DELETED, movieId, null);
+    }
+
+    /**
+     * Changes published after the given event id, replayed from the bounded history, or only new changes
+     * when no id is given. An id this feed cannot resume after, because it was not handed out by this process
+     * or its successors are no longer in the history, gets a {@link MovieChange.Type#RESET} followed by new
+     * changes only. Every subscriber gets its own bounded buffer, dropping its oldest events when it cannot
+     * keep up instead of holding back the publishers.
+     */
+    public Flux<MovieChange> changes(Long lastEventId) {
+        return Flux.defer(() -> {
+                    long current = currentSequence();
+                    if (lastEventId != null && !canResumeAfter(lastEventId, current)) {
+                        log.info("Cannot resume changes after {}, resetting the subscriber at {}", lastEventId, current);
+
+                        return Mono.just(new MovieChange(current, MovieChange.Type.RESET, 0, null))
+                                .concatWith(sink.asFlux().filter(change -> change.getId() > current));
+                    }
+
+                    long after = lastEventId == null ? current : lastEventId;
+
+                    return sink.asFlux().filter(change -> change.getId() > after);
+                })
+                .onBackpressureBuffer(subscriberBuffer,
+                        dropped -> log.warn("Dropping change {} for a slow subscriber", dropped.getId()),
+                        BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    // the sequence is assigned and emitted under the same lock that new subscribers read it with, so a
+    // subscriber never misses a change that was numbered but not yet emitted when it joined
+    private synchronized void publish(MovieChange.Type type, int movieId, Movie movie) {
+        sink.tryEmitNext(new MovieChange(++sequence, type, movieId, movie));
+    }
+
+    private synchronized long currentSequence() {
+        return sequence;
+    }
+
+    private boolean canResumeAfter(long lastEventId, long current) {
+        return lastEventId <= current && lastEventId >= Math.max(start, current - historySize);
+    }
+
+}
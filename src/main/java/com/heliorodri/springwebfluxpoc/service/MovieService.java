@@ -1,19 +1,30 @@
 package com.heliorodri.springwebfluxpoc.service;
 
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
 import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieChange;
+import com.heliorodri.springwebfluxpoc.domain.MovieIngestResult;
+import com.heliorodri.springwebfluxpoc.domain.MoviePage;
+import com.heliorodri.springwebfluxpoc.exception.MovieNotFoundException;
 import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
-import io.netty.util.internal.StringUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
+import static com.heliorodri.springwebfluxpoc.config.ReadReplicaRoutingConnectionFactory.readOnly;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
-import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 
 @Service
 @RequiredArgsConstructor
@@ -21,38 +32,267 @@ public class MovieService {
 
     private final MovieRepository repository;
 
+    private final MovieProperties properties;
+
+    private final MovieCache cache;
+
+    private final MovieBatchLoader batchLoader;
+
+    private final MovieChangeFeed changeFeed;
+
+    private final MovieWriteBuffer writeBuffer;
+
+    // served with the catalog ETag, so it is read from the primary like findCatalogVersion: replicas are picked
+    // per connection and a lagging one would pair stale rows with a current ETag
     public Flux<Movie> findAll(){
-        return repository.findAll();
+        return repository.findAll()
+                .map(this::withPendingUpdate);
+    }
+
+    public Flux<Movie> stream(){
+        return repository.streamAll()
+                .limitRate(properties.getStream().getFetchSize())
+                .map(this::withPendingUpdate)
+                .contextWrite(readOnly());
+    }
+
+    public Mono<MoviePage> findPage(int after, Integer limit){
+        return resolveLimit(limit)
+                .flatMap(pageSize -> repository.findPageAfter(after, pageSize)
+                        .map(this::withPendingUpdate)
+                        .collectList()
+                        .map(movies -> MoviePage.of(movies, pageSize)))
+                .contextWrite(readOnly());
+    }
+
+    public Flux<Movie> search(String query, boolean prefix, Integer limit){
+        if (!StringUtils.hasText(query)){
+            return Flux.error(new ResponseStatusException(BAD_REQUEST, "The search query cannot be blank"));
+        }
+
+        String term = query.trim().toLowerCase(Locale.ROOT);
+        if (!prefix && term.length() < properties.getSearch().getMinContainsLength()){
+            return Flux.error(new ResponseStatusException(BAD_REQUEST, "The search query must have at least "
+                    + properties.getSearch().getMinContainsLength() + " characters, or use prefix search"));
+        }
+
+        String pattern = (prefix ? "" : "%") + escapeLike(term) + "%";
+
+        return resolveLimit(limit)
+                .flatMapMany(maxResults -> repository.searchByName(pattern, maxResults))
+                .map(this::withPendingUpdate)
+                .contextWrite(readOnly());
     }
 
     public Mono<Movie> findById(int id){
-        return repository.findById(id)
-                .switchIfEmpty(Mono.error(new ResponseStatusException(NOT_FOUND, "Movie with id " + id + " not found")));
+        Movie pending = pendingUpdate(id);
+        if (pending != null){
+            return Mono.just(pending);
+        }
+
+        return cache.get(id, this::load)
+                .switchIfEmpty(Mono.error(() -> movieNotFound(id)));
+    }
+
+    public Mono<Long> findVersion(int id){
+        return findVersion(id, false);
+    }
+
+    // pending updates are overlaid on findAll, so the version has to move with them or a conditional request
+    // would be answered 304 while the list it validates has changed
+    public Mono<String> findCatalogVersion(){
+        return repository.findCatalogVersion()
+                .map(catalog -> catalog.getCount() + "-" + catalog.getMaxId() + "-" + catalog.getVersionSum())
+                .map(version -> properties.getWriteBehind().isEnabled() && !writeBuffer.isEmpty()
+                        ? version + "-" + Long.toHexString(writeBuffer.fingerprint())
+                        : version);
+    }
+
+    public Flux<Movie> findAllById(List<Integer> ids) {
+        if (ids.size() > properties.getPage().getMaxLimit()) {
+            return Flux.error(new ResponseStatusException(BAD_REQUEST,
+                    "At most " + properties.getPage().getMaxLimit() + " ids can be looked up at once"));
+        }
+
+        return repository.findAllByIds(ids.stream().distinct().toArray(Integer[]::new))
+                .map(this::withPendingUpdate)
+                .contextWrite(readOnly());
     }
 
     public Mono<Movie> save(Movie movie) {
-        return repository.save(movie);
+        return repository.save(movie)
+                .doOnNext(cache::put)
+                .doOnNext(changeFeed::created);
     }
 
     public Mono<Void> update(int id, Movie movie) {
-        return findById(id)
-                .map(movieToSave -> movieToSave.withName(movie.getName()))
-                .flatMap(repository::save)
-                .then();
+        if (properties.getWriteBehind().isEnabled()) {
+            return updateBehind(id, movie);
+        }
+
+        return repository.updateName(id, movie.getName())
+                .flatMap(rows -> requireAffected(id, rows))
+                .doOnSuccess(ignored -> updated(id, movie));
+    }
+
+    public Mono<Void> update(int id, Movie movie, List<Long> expectedVersions) {
+        // the versions are compared by the database, so it has to hold any buffered update first
+        return flushPending(id)
+                .then(repository.updateNameIfVersion(id, movie.getName(), expectedVersions.toArray(new Long[0])))
+                .flatMap(rows -> rows == 0 ? versionConflictOrNotFound(id) : Mono.<Void>empty())
+                .doOnSuccess(ignored -> updated(id, movie));
     }
 
     public Mono<Void> delete(int id) {
-        return findById(id).flatMap(repository::delete);
+        return Mono.fromRunnable(() -> discardPending(id))
+                .then(repository.removeById(id))
+                .flatMap(rows -> requireAffected(id, rows))
+                .doOnSuccess(ignored -> {
+                    cache.invalidate(id);
+                    changeFeed.deleted(id);
+                });
+    }
+
+    public Flux<MovieChange> changes(Long lastEventId) {
+        return changeFeed.changes(lastEventId);
     }
 
     @Transactional
     public Flux<Movie> saveAll(List<Movie> movies) {
-        return repository.saveAll(movies)
-                .doOnNext(this::throwExceptionWhenEmptyName);
+        return Flux.defer(() -> {
+            movies.forEach(this::throwExceptionWhenEmptyName);
+
+            Map<Boolean, List<Movie>> byExistence = movies.stream()
+                    .collect(Collectors.partitioningBy(movie -> movie.getId() != null));
+
+            List<Runnable> changes = new ArrayList<>(movies.size());
+
+            // changes are announced once every row is written, so a failed batch announces nothing
+            return Flux.concat(
+                            insertAll(byExistence.get(false)).doOnNext(saved -> changes.add(() -> changeFeed.created(saved))),
+                            updateAll(byExistence.get(true)).doOnNext(saved -> changes.add(() -> changeFeed.updated(saved))))
+                    .doOnNext(saved -> cache.invalidate(saved.getId()))
+                    .doOnComplete(() -> changes.forEach(Runnable::run));
+        });
+    }
+
+    private Flux<Movie> updateAll(List<Movie> movies) {
+        return Flux.fromIterable(movies)
+                .doOnNext(movie -> discardPending(movie.getId()))
+                .concatMap(movie -> repository.updateName(movie.getId(), movie.getName())
+                        .flatMap(rows -> requireAffected(movie.getId(), rows))
+                        .thenReturn(movie));
+    }
+
+    public Flux<MovieIngestResult> ingest(Flux<Movie> movies) {
+        // each chunk is a single INSERT statement, so it is committed atomically; only one chunk is
+        // requested from the request body while the previous one is being written
+        return movies
+                .doOnNext(this::throwExceptionWhenEmptyName)
+                .buffer(properties.getBatch().getChunkSize())
+                .concatMap(chunk -> repository.insertAll(chunk)
+                        .doOnNext(saved -> cache.invalidate(saved.getId()))
+                        .doOnNext(changeFeed::created)
+                        .map(Movie::getId)
+                        .collectList(), 1)
+                .index()
+                .map(chunk -> new MovieIngestResult(chunk.getT1(), chunk.getT2().size(), chunk.getT2()));
+    }
+
+    private Flux<Movie> insertAll(List<Movie> movies) {
+        return Flux.fromIterable(movies)
+                .buffer(properties.getBatch().getChunkSize())
+                .concatMap(repository::insertAll);
+    }
+
+    private Mono<Integer> resolveLimit(Integer limit) {
+        int resolved = limit == null ? properties.getPage().getDefaultLimit() : limit;
+
+        if (resolved < 1 || resolved > properties.getPage().getMaxLimit()){
+            return Mono.error(new ResponseStatusException(BAD_REQUEST,
+                    "Limit must be between 1 and " + properties.getPage().getMaxLimit()));
+        }
+
+        return Mono.just(resolved);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    // entries stay cached for minutes, so they are loaded from the primary rather than a replica that may lag
+    private Mono<Movie> load(int id) {
+        return properties.getLookup().isCoalescing() ? batchLoader.load(id) : repository.findById(id);
+    }
+
+    // the stored version is looked up once per burst; later updates of the same movie only touch the buffer
+    private Mono<Void> updateBehind(int id, Movie movie) {
+        return findVersion(id, true)
+                .map(version -> writeBuffer.put(movie.withId(id).withVersion(version + 1)))
+                .doOnNext(buffered -> updated(id, buffered))
+                .then();
+    }
+
+    // a version the next one is derived from is read from the primary: a lagging replica would hand out one
+    // that is already taken, and the buffered update would then go out with a stale version
+    private Mono<Long> findVersion(int id, boolean fromPrimary){
+        Movie cached = pendingUpdate(id);
+        if (cached == null){
+            cached = cache.getIfPresent(id);
+        }
+        if (cached != null){
+            return Mono.just(cached.getVersion() == null ? 0L : cached.getVersion());
+        }
+
+        Mono<Long> stored = repository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> movieNotFound(id)));
+
+        return fromPrimary ? stored : stored.contextWrite(readOnly());
+    }
+
+    private Movie withPendingUpdate(Movie stored) {
+        return properties.getWriteBehind().isEnabled() ? writeBuffer.overlay(stored) : stored;
+    }
+
+    private Movie pendingUpdate(int id) {
+        return properties.getWriteBehind().isEnabled() ? writeBuffer.get(id) : null;
+    }
+
+    private Mono<Void> flushPending(int id) {
+        return properties.getWriteBehind().isEnabled() ? writeBuffer.flush(id) : Mono.empty();
+    }
+
+    private void discardPending(int id) {
+        if (properties.getWriteBehind().isEnabled()) {
+            writeBuffer.discard(id);
+        }
+    }
+
+    private void updated(int id, Movie movie) {
+        cache.invalidate(id);
+        changeFeed.updated(movie.withId(id));
+    }
+
+    private Mono<Void> requireAffected(int id, int rows) {
+        return rows == 0 ? Mono.error(movieNotFound(id)) : Mono.empty();
+    }
+
+    private Mono<Void> versionConflictOrNotFound(int id) {
+        // only reached when the conditional update missed, so the happy path stays a single statement
+        return repository.existsById(id)
+                .flatMap(exists -> Mono.error(exists
+                        ? new ResponseStatusException(PRECONDITION_FAILED, "Movie with id " + id + " was modified")
+                        : movieNotFound(id)));
+    }
+
+    private static ResponseStatusException movieNotFound(int id) {
+        return new MovieNotFoundException(id);
     }
 
     private void throwExceptionWhenEmptyName(Movie movie){
-        if (StringUtil.isNullOrEmpty(movie.getName())){
+        if (!StringUtils.hasText(movie.getName()) || movie.getName().length() > Movie.MAX_NAME_LENGTH){
             throw new ResponseStatusException(BAD_REQUEST, "Invalid Name");
         }
     }
@@ -0,0 +1,170 @@
+package com.heliorodri.springwebfluxpoc.service;
+
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Updates accepted but not yet written, at most one per movie. They are written in batches when the flush
+ * interval elapses or the batch size is reached, and whatever is left when the application stops.
+ */
+@Component
+@Slf4j
+public class MovieWriteBuffer implements DisposableBean {
+
+    private final MovieRepository repository;
+
+    private final MovieCache cache;
+
+    private final MovieProperties.WriteBehind config;
+
+    // each entry carries the version the movie will have once written, so readers see their own writes
+    private final Map<Integer, Movie> pending = new ConcurrentHashMap<>();
+
+    private final Sinks.Many<Boolean> fullBatches = Sinks.many().multicast().directBestEffort();
+
+    private final Disposable subscription;
+
+    public MovieWriteBuffer(MovieRepository repository, MovieProperties properties, MovieCache cache,
+                            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.cache = cache;
+        this.config = properties.getWriteBehind();
+
+        Gauge.builder("movie.write-behind.pending", pending, Map::size)
+                .description("Buffered movie updates not yet written")
+                .register(meterRegistry);
+
+        // flushes never overlap; triggers arriving during one collapse into at most one more
+        this.subscription = config.isEnabled()
+                ? Flux.merge(Flux.interval(config.getFlushInterval()), fullBatches.asFlux())
+                        .onBackpressureDrop()
+                        .concatMap(trigger -> flush()
+                                .onErrorResume(e -> {
+                                    log.warn("Could not write {} buffered movie updates, retrying", pending.size(), e);
+                                    return Mono.empty();
+                                }), 1)
+                        .subscribe()
+                : Disposables.disposed();
+    }
+
+    /**
+     * Buffers {@code movie}, replacing any update of the same movie not yet written. Its version must be the
+     * stored version plus one; a concurrent update already pending moves it further on.
+     */
+    public Movie put(Movie movie) {
+        Movie buffered = pending.merge(movie.getId(), movie, (previous, latest) ->
+                latest.withVersion(Math.max(latest.getVersion(), previous.getVersion() + 1)));
+
+        if (pending.size() >= config.getMaxBatchSize()) {
+            fullBatches.tryEmitNext(Boolean.TRUE);
+        }
+
+        return buffered;
+    }
+
+    public Movie get(int id) {
+        return pending.get(id);
+    }
+
+    /**
+     * The pending update of a stored movie if there is one, otherwise the movie itself.
+     */
+    public Movie overlay(Movie stored) {
+        if (pending.isEmpty()) {
+            return stored;
+        }
+
+        return pending.getOrDefault(stored.getId(), stored);
+    }
+
+    /**
+     * Drops the pending update of a movie, for writes that supersede it.
+     */
+    public void discard(int id) {
+        pending.remove(id);
+    }
+
+    /**
+     * Writes the pending update of one movie now, for writes that have to see it stored.
+     */
+    public Mono<Void> flush(int id) {
+        return Mono.defer(() -> {
+            Movie movie = pending.get(id);
+
+            return movie == null ? Mono.empty() : write(Collections.singletonList(movie));
+        });
+    }
+
+    public Mono<Void> flush() {
+        return Flux.defer(() -> Flux.fromIterable(new ArrayList<>(pending.values())))
+                .buffer(config.getMaxBatchSize())
+                .concatMap(this::write)
+                .then();
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Identifies the pending updates by movie and version, for validators of responses they are overlaid on.
+     * Every update moves it on; a flush moves it back, but then the stored rows change instead.
+     */
+    public long fingerprint() {
+        long hash = 0;
+        for (Movie movie : pending.values()) {
+            hash += 31L * movie.getId() + movie.getVersion();
+        }
+
+        return hash;
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    @Override
+    public void destroy() {
+        subscription.dispose();
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        log.info("Writing {} buffered movie updates before shutting down", pending.size());
+        try {
+            flush().block(config.getShutdownTimeout());
+        } catch (RuntimeException e) {
+            log.error("Lost {} buffered movie updates: {}", pending.size(), pending.keySet(), e);
+        }
+    }
+
+    private Mono<Void> write(List<Movie> batch) {
+        return repository.updateNames(batch)
+                .doOnSuccess(rows -> batch.forEach(movie -> {
+                    // only if no newer update arrived meanwhile; that one stays for the next flush
+                    pending.remove(movie.getId(), movie);
+                    cache.invalidate(movie.getId());
+                }))
+                .then();
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.heliorodri.springwebfluxpoc.web;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit in the style of Netflix' Gradient2: the limit follows the ratio between the
+ * long-term and the latest latency, so it shrinks as soon as requests start queueing on the connection pool
+ * and grows back by roughly its square root while latency stays flat.
+ */
+final class GradientConcurrencyLimiter {
+
+    private static final double LONG_RTT_WEIGHT = 0.01;
+
+    private final MovieProperties.Concurrency properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private double longRtt;
+
+    GradientConcurrencyLimiter(MovieProperties.Concurrency properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot; only completed requests are sampled, cancelled ones say nothing about latency.
+     */
+    void release(long rttNanos, boolean sample) {
+        int current = inFlight.getAndDecrement();
+
+        if (sample && rttNanos > 0) {
+            onSample(rttNanos, current);
+        }
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rtt, int concurrent) {
+        longRtt = longRtt == 0 ? rtt : longRtt * (1 - LONG_RTT_WEIGHT) + rtt * LONG_RTT_WEIGHT;
+
+        // let the long-term latency recover quickly after a period of overload
+        if (longRtt / rtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // a lightly used limit says nothing about the capacity, so it is neither grown nor shrunk
+        if (concurrent < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+
+        estimatedLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(),
+                estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing()));
+        limit = (int) estimatedLimit;
+    }
+
+}
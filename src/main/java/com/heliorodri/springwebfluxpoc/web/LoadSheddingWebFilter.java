@@ -0,0 +1,138 @@
+package com.heliorodri.springwebfluxpoc.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+
+/**
+ * Rejects requests before they reach the controller, and so before they queue for a connection: first
+ * against a token bucket per client and endpoint (429), then against an adaptive concurrency limit (503).
+ * Rejections carry a Retry-After header and an empty body, so shedding stays cheap under overload.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "movie.limits.enabled", havingValue = "true")
+public class LoadSheddingWebFilter implements WebFilter {
+
+    private static final String MOVIES_PATH = "/movies";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    private final MovieProperties.Limits properties;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final GradientConcurrencyLimiter limiter;
+
+    private final Counter rateLimited;
+
+    private final Counter shed;
+
+    public LoadSheddingWebFilter(MovieProperties properties, MeterRegistry registry) {
+        this.properties = properties.getLimits();
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(this.properties.getMaximumClients())
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .executor(Runnable::run)
+                .build();
+        this.limiter = new GradientConcurrencyLimiter(this.properties.getConcurrency());
+        this.rateLimited = registry.counter("movie.requests.rejected", "reason", "rate");
+        this.shed = registry.counter("movie.requests.rejected", "reason", "concurrency");
+
+        Gauge.builder("movie.requests.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .register(registry);
+        Gauge.builder("movie.requests.concurrency.in-flight", limiter, GradientConcurrencyLimiter::getInFlight)
+                .register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!request.getPath().value().startsWith(MOVIES_PATH)) {
+            return chain.filter(exchange);
+        }
+
+        String endpoint = endpoint(request);
+        long now = System.nanoTime();
+        long wait = buckets.get(clientKey(request) + ' ' + endpoint, key -> new TokenBucket(rate(endpoint), now))
+                .tryAcquire(now);
+
+        if (wait > 0) {
+            rateLimited.increment();
+            return reject(exchange, TOO_MANY_REQUESTS, Duration.ofNanos(wait));
+        }
+
+        // streams stay open for as long as the client reads, so they would pin slots and skew the latency
+        if (!properties.getConcurrency().isEnabled() || isStreaming(request)) {
+            return chain.filter(exchange);
+        }
+
+        if (!limiter.tryAcquire()) {
+            shed.increment();
+            return reject(exchange, SERVICE_UNAVAILABLE, properties.getConcurrency().getRetryAfter());
+        }
+
+        return chain.filter(exchange)
+                .doFinally(signal -> limiter.release(System.nanoTime() - now, signal != SignalType.CANCEL));
+    }
+
+    private String clientKey(ServerHttpRequest request) {
+        String client = request.getHeaders().getFirst(properties.getClientHeader());
+        if (client != null) {
+            return client;
+        }
+
+        InetSocketAddress address = request.getRemoteAddress();
+        return address == null ? "unknown" : address.getHostString();
+    }
+
+    private static String endpoint(ServerHttpRequest request) {
+        return request.getMethodValue() + ' ' + ID_SEGMENT.matcher(request.getPath().value()).replaceAll("/{id}");
+    }
+
+    private MovieProperties.Rate rate(String endpoint) {
+        return properties.getEndpoints().getOrDefault(endpoint, properties.getRate());
+    }
+
+    private static boolean isStreaming(ServerHttpRequest request) {
+        List<MediaType> accept = request.getHeaders().getAccept();
+
+        return accept.contains(TEXT_EVENT_STREAM) || accept.contains(APPLICATION_NDJSON)
+                || APPLICATION_NDJSON.isCompatibleWith(request.getHeaders().getContentType());
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, Duration retryAfter) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+
+        return exchange.getResponse().setComplete();
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.heliorodri.springwebfluxpoc.web;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single theoretical arrival time (GCRA), so taking a token is one compare-and-set
+ * with no refill bookkeeping and no lock.
+ */
+final class TokenBucket {
+
+    private final long interval;
+
+    private final long tolerance;
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(MovieProperties.Rate rate, long now) {
+        this.interval = (long) (1_000_000_000L / rate.getRequestsPerSecond());
+        this.tolerance = interval * rate.getBurst();
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Takes a token, returning 0, or returns the nanoseconds until one is available.
+     */
+    long tryAcquire(long now) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, now) + interval;
+            long wait = next - now - tolerance;
+
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+-- the embedded profile's schema; mirrors db/migration/postgresql as closely as H2 allows
+CREATE TABLE IF NOT EXISTS movie (
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,2 @@
+-- H2 has neither trigram nor expression indexes; this one serves the ORDER BY name of the search query
+CREATE INDEX IF NOT EXISTS movie_name_idx ON movie (name);
@@ -0,0 +1,2 @@
+-- H2 has no fillfactor or autovacuum settings, only the constraint of the PostgreSQL migration applies
+ALTER TABLE movie ADD CONSTRAINT movie_name_not_blank CHECK (TRIM(name) <> '');
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS movie (
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL
+);
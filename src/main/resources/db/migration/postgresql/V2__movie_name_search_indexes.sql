@@ -0,0 +1,6 @@
+-- substring search: lower(name) LIKE '%term%' is answered from trigrams instead of a sequential scan
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS movie_name_trgm_idx ON movie USING gin (lower(name) gin_trgm_ops);
+
+-- autocomplete: lower(name) LIKE 'term%' is a range scan regardless of the database collation
+CREATE INDEX IF NOT EXISTS movie_name_prefix_idx ON movie (lower(name) text_pattern_ops);
@@ -0,0 +1,2 @@
+-- optimistic locking version, also the source of the movie ETags
+ALTER TABLE movie ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,6 @@
+-- movies are updated far more often than inserted: leave room on every page so the new row version of an update
+-- lands next to the old one, and vacuum the dead versions well before the default 20% of the table accumulates
+ALTER TABLE movie SET (fillfactor = 85, autovacuum_vacuum_scale_factor = 0.05, autovacuum_analyze_scale_factor = 0.05);
+
+-- the name is bounded by the column; a blank one is rejected by the application, and from now on by the table too
+ALTER TABLE movie ADD CONSTRAINT movie_name_not_blank CHECK (btrim(name) <> '') NOT VALID;
@@ -0,0 +1,96 @@
+package com.heliorodri.springwebfluxpoc.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.MOVIE_ID;
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildValidMovie;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+class CachingMovieJsonEncoderTest {
+
+    private static final ResolvableType MOVIE_TYPE = ResolvableType.forClass(Movie.class);
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private MovieCache cache;
+
+    private CachingMovieJsonEncoder encoder;
+
+    @BeforeEach
+    public void setUp(){
+        cache = new MovieCache(new MovieProperties());
+        encoder = new CachingMovieJsonEncoder(new ObjectMapper(), cache, true);
+    }
+
+    @Test
+    @DisplayName("it should only encode movies")
+    public void itShouldOnlyEncodeMovies(){
+        assertTrue(encoder.canEncode(MOVIE_TYPE, APPLICATION_JSON));
+        assertFalse(encoder.canEncode(ResolvableType.forClass(Object.class), APPLICATION_JSON));
+    }
+
+    @Test
+    @DisplayName("it should reuse the encoded bytes of the cached movie")
+    public void itShouldReuseEncodedBytesOfCachedMovie(){
+        Movie movie = buildValidMovie();
+        cache.put(movie);
+
+        byte[] first = encode(movie);
+
+        assertEquals("{\"id\":1,\"name\":\"Movie Test\",\"version\":null}", new String(first, StandardCharsets.UTF_8));
+        assertSame(first, cache.serialized(movie, ignored -> new byte[0]));
+    }
+
+    @Test
+    @DisplayName("it should encode the movie again once its cache entry is invalidated")
+    public void itShouldEncodeAgainAfterInvalidation(){
+        Movie movie = buildValidMovie();
+        cache.put(movie);
+        encode(movie);
+
+        cache.invalidate(MOVIE_ID);
+        Movie renamed = movie.withName("Renamed");
+        cache.put(renamed);
+
+        assertEquals("{\"id\":1,\"name\":\"Renamed\",\"version\":null}", new String(encode(renamed), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("it should encode a stream of movies as a json array")
+    public void itShouldEncodeStreamOfMoviesAsArray(){
+        Flux<DataBuffer> encoded = encoder.encode(Flux.just(buildValidMovie(), buildValidMovie()), bufferFactory,
+                MOVIE_TYPE, APPLICATION_JSON, Collections.emptyMap());
+
+        StepVerifier.create(DataBufferUtils.join(encoded).map(buffer -> buffer.toString(StandardCharsets.UTF_8)))
+                .expectNextMatches(json -> json.startsWith("[") && json.endsWith("]"))
+                .verifyComplete();
+    }
+
+    private byte[] encode(Movie movie) {
+        DataBuffer buffer = encoder.encode(Mono.just(movie), bufferFactory, MOVIE_TYPE, APPLICATION_JSON,
+                Collections.emptyMap()).blockFirst();
+
+        return buffer.asByteBuffer().array();
+    }
+
+}
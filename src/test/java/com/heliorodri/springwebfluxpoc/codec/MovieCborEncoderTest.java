@@ -0,0 +1,67 @@
+package com.heliorodri.springwebfluxpoc.codec;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildValidMovie;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+
+class MovieCborEncoderTest {
+
+    private static final ResolvableType MOVIE_TYPE = ResolvableType.forClass(Movie.class);
+
+    private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    private final CBORMapper mapper = new CBORMapper();
+
+    private final MovieCborEncoder encoder = new MovieCborEncoder(mapper);
+
+    private final Movie movie = buildValidMovie();
+
+    @Test
+    @DisplayName("it should encode a stream of movies as a cbor array")
+    public void itShouldEncodeStreamOfMoviesAsArray() throws IOException {
+        Flux<DataBuffer> encoded = encoder.encode(Flux.just(movie, movie.withId(2)), bufferFactory, MOVIE_TYPE,
+                APPLICATION_CBOR, Collections.emptyMap());
+
+        byte[] bytes = DataBufferUtils.join(encoded)
+                .map(buffer -> {
+                    byte[] content = new byte[buffer.readableByteCount()];
+                    buffer.read(content);
+                    DataBufferUtils.release(buffer);
+                    return content;
+                })
+                .block();
+
+        assertArrayEquals(new Movie[]{movie, movie.withId(2)}, mapper.readValue(bytes, Movie[].class));
+    }
+
+    @Test
+    @DisplayName("it should write each movie as it arrives instead of waiting for the stream to complete")
+    public void itShouldWriteMoviesAsTheyArrive() {
+        Sinks.Many<Movie> movies = Sinks.many().unicast().onBackpressureBuffer();
+
+        StepVerifier.create(encoder.encode(movies.asFlux(), bufferFactory, MOVIE_TYPE, APPLICATION_CBOR,
+                        Collections.emptyMap()))
+                .expectNextCount(1)
+                .then(() -> movies.tryEmitNext(movie))
+                .expectNextMatches(buffer -> buffer.readableByteCount() > 1)
+                .then(movies::tryEmitComplete)
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.heliorodri.springwebfluxpoc.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+
+import static com.heliorodri.springwebfluxpoc.config.ReadReplicaRoutingConnectionFactory.readOnly;
+
+class ReadReplicaRoutingConnectionFactoryTest {
+
+    private ReadReplicaRoutingConnectionFactory connectionFactory;
+
+    private DatabaseClient client;
+
+    @BeforeEach
+    public void setUp(){
+        connectionFactory = new ReadReplicaRoutingConnectionFactory(database("primary"),
+                Arrays.asList(database("replica-a"), database("replica-b")));
+        client = DatabaseClient.create(connectionFactory);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        connectionFactory.destroy();
+    }
+
+    // the pools start the shared parallel scheduler; stop it so that BlockHound, installed by later test
+    // classes in this JVM, does not instrument executor classes while its workers are parked inside them
+    @AfterAll
+    public static void stopSchedulers(){
+        Schedulers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("it should send queries to the primary by default")
+    public void itShouldQueryPrimaryByDefault(){
+        StepVerifier.create(databaseName())
+                .expectNext("primary")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should spread read-only queries over the replicas")
+    public void itShouldSpreadReadOnlyQueriesOverReplicas(){
+        StepVerifier.create(Flux.concat(databaseName(), databaseName(), databaseName()).contextWrite(readOnly()))
+                .expectNext("replica-a", "replica-b", "replica-a")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should run every statement of a transaction on the primary")
+    public void itShouldRunTransactionsOnPrimary(){
+        TransactionalOperator transaction = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+
+        Mono<String> insertThenRead = client.sql("INSERT INTO origin (name) VALUES ('written')")
+                .then()
+                .then(client.sql("SELECT count(*) AS rows FROM origin").map(row -> row.get("rows", Long.class)).one())
+                .zipWith(databaseName(), (rows, name) -> name + ":" + rows);
+
+        StepVerifier.create(transaction.transactional(insertThenRead))
+                .expectNext("primary:2")
+                .verifyComplete();
+    }
+
+    private Mono<String> databaseName() {
+        return client.sql("SELECT name FROM origin ORDER BY name LIMIT 1")
+                .map(row -> row.get("name", String.class))
+                .one();
+    }
+
+    private static ConnectionPool database(String name) {
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get("r2dbc:h2:mem:///" + name + "?options=DB_CLOSE_DELAY=-1"))
+                .name(name)
+                .build());
+
+        DatabaseClient client = DatabaseClient.create(pool);
+        client.sql("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(255))").then()
+                .then(client.sql("DELETE FROM origin").then())
+                .then(client.sql("INSERT INTO origin (name) VALUES ('" + name + "')").then())
+                .block();
+
+        return pool;
+    }
+
+}
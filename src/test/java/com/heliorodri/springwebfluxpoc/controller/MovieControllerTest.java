@@ -12,6 +12,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.blockhound.BlockHound;
 import reactor.blockhound.BlockingOperationError;
@@ -20,6 +25,7 @@ import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
+import java.util.Collections;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
@@ -30,7 +36,10 @@ import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buil
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -54,6 +63,7 @@ class MovieControllerTest{
     @BeforeEach
     public void setUp(){
         when(service.findAll()).thenReturn(Flux.just(movie));
+        when(service.findCatalogVersion()).thenReturn(Mono.just("1-1-0"));
         when(service.findById(anyInt())).thenReturn(Mono.just(movie));
         when(service.save(buildMovieToBeSaved())).thenReturn(Mono.just(movie));
         when(service.delete(anyInt())).thenReturn(Mono.empty());
@@ -79,7 +89,7 @@ class MovieControllerTest{
     @Test
     @DisplayName("it should return all movies(flux) with success")
     public void itShouldReturnFluxOfAllMovies(){
-        StepVerifier.create(controller.listAll())
+        StepVerifier.create(controller.listAll(exchange()).flatMapMany(HttpEntity::getBody))
                 .expectSubscription()
                 .expectNext(movie)
                 .verifyComplete();
@@ -88,12 +98,28 @@ class MovieControllerTest{
     @Test
     @DisplayName("it should find a movie by its id with success")
     public void itShouldReturnMonoMovieById(){
-        StepVerifier.create(controller.findById(MOVIE_ID))
+        StepVerifier.create(controller.findById(MOVIE_ID, exchange()).map(HttpEntity::getBody))
                 .expectSubscription()
                 .expectNext(movie)
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("it should answer a matching If-None-Match with not modified without loading the movie")
+    public void itShouldReturnNotModifiedWhenETagMatches(){
+        when(service.findVersion(MOVIE_ID)).thenReturn(Mono.just(3L));
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/movies/1")
+                .ifNoneMatch("\"3\""));
+
+        StepVerifier.create(controller.findById(MOVIE_ID, exchange).map(ResponseEntity::getStatusCode))
+                .expectSubscription()
+                .expectNext(NOT_MODIFIED)
+                .verifyComplete();
+
+        verify(service, never()).findById(anyInt());
+    }
+
     @Test
     @DisplayName("it should save a movies with success")
     public void itShouldSaveTheMovieWithSuccess(){
@@ -118,9 +144,27 @@ class MovieControllerTest{
     @Test
     @DisplayName("it should update a movie with success")
     public void itShouldUpdateTheMovieWithSuccess(){
-        StepVerifier.create(controller.update(MOVIE_ID, buildMovieToBeUpdated()))
+        StepVerifier.create(controller.update(MOVIE_ID, new HttpHeaders(), buildMovieToBeUpdated()))
                 .expectSubscription()
                 .verifyComplete();
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("it should update a movie only if its version matches If-Match")
+    public void itShouldUpdateTheMovieConditionally(){
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfMatch("\"3\"");
+        when(service.update(MOVIE_ID, buildMovieToBeUpdated(), Collections.singletonList(3L))).thenReturn(Mono.empty());
+
+        StepVerifier.create(controller.update(MOVIE_ID, headers, buildMovieToBeUpdated()))
+                .expectSubscription()
+                .verifyComplete();
+
+        verify(service, never()).update(anyInt(), any(Movie.class));
+    }
+
+    private static MockServerWebExchange exchange(){
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/movies"));
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.heliorodri.springwebfluxpoc.controller;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MoviePage;
+import com.heliorodri.springwebfluxpoc.service.MovieService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.MOVIE_ID;
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildMovieToBeSaved;
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildValidMovie;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.ALL;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_HTML;
+
+@ExtendWith(MockitoExtension.class)
+class MovieRouterTest {
+
+    @Mock
+    private MovieService service;
+
+    private WebTestClient client;
+
+    private final Movie movie = buildValidMovie();
+
+    @BeforeEach
+    public void setUp(){
+        client = WebTestClient.bindToRouterFunction(MovieRouter.routes(new MovieHandler(service))).build();
+    }
+
+    @Test
+    @DisplayName("it should reject a blank name before reaching the service")
+    public void itShouldRejectBlankNameBeforeReachingService(){
+        client.post()
+                .uri("/movies")
+                .bodyValue(buildMovieToBeSaved().withName("  "))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(service, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("it should reject an id that is not a number")
+    public void itShouldRejectNonNumericId(){
+        client.get()
+                .uri("/movies/abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(service, never()).findById(anyInt());
+    }
+
+    @Test
+    @DisplayName("it should answer a wildcard accept header with the json list and its etag")
+    public void itShouldAnswerWildcardWithJsonList(){
+        when(service.findCatalogVersion()).thenReturn(Mono.just("1-1-0"));
+        when(service.findAll()).thenReturn(Flux.just(movie));
+
+        client.get()
+                .uri("/movies")
+                .accept(ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_JSON)
+                .expectHeader().valueEquals("ETag", "\"1-1-0\"")
+                .expectBodyList(Movie.class).contains(movie);
+    }
+
+    @Test
+    @DisplayName("it should stream movies only when the client asks for a stream")
+    public void itShouldStreamOnlyWhenAsked(){
+        when(service.stream()).thenReturn(Flux.just(movie));
+
+        client.get()
+                .uri("/movies")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_NDJSON);
+
+        verify(service, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("it should route the limit parameter to a page")
+    public void itShouldRouteLimitToPage(){
+        when(service.findPage(0, 1)).thenReturn(Mono.just(new MoviePage(Collections.singletonList(movie), MOVIE_ID)));
+
+        client.get()
+                .uri("/movies?limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .expectBody()
+                .jsonPath("$.next").isEqualTo(MOVIE_ID);
+    }
+
+    @Test
+    @DisplayName("it should refuse media types the movie writers cannot produce")
+    public void itShouldRefuseUnsupportedMediaTypes(){
+        client.get()
+                .uri("/movies/{id}", MOVIE_ID)
+                .accept(TEXT_HTML)
+                .exchange()
+                .expectStatus().isEqualTo(406);
+
+        verify(service, never()).findById(anyInt());
+    }
+
+    @Test
+    @DisplayName("it should refuse the change stream to clients that do not accept server-sent events")
+    public void itShouldRefuseChangesWithoutEventStream(){
+        client.get()
+                .uri("/movies/changes")
+                .accept(APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(406);
+
+        verify(service, never()).changes(any());
+    }
+
+}
@@ -1,7 +1,11 @@
 package com.heliorodri.springwebfluxpoc.integration;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieCatalogVersion;
+import com.heliorodri.springwebfluxpoc.domain.MovieChange;
 import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import com.heliorodri.springwebfluxpoc.service.MovieChangeFeed;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,9 +13,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -20,9 +29,13 @@ import reactor.blockhound.BlockingOperationError;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
@@ -33,21 +46,38 @@ import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buil
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureWebTestClient
+@AutoConfigureMetrics
 public class MovieControllerIT {
 
     @MockBean
     private MovieRepository repository;
 
+    @Autowired
+    private MovieChangeFeed changeFeed;
+
     @Autowired
     private WebTestClient testClient;
 
+    @LocalServerPort
+    private int port;
+
     private final Movie movie = buildValidMovie();
 
     @BeforeAll
@@ -75,11 +105,14 @@ public class MovieControllerIT {
     @BeforeEach
     public void setUp() {
         when(repository.findAll()).thenReturn(Flux.just(movie));
+        when(repository.findCatalogVersion()).thenReturn(Mono.just(new MovieCatalogVersion(1, 1, 0)));
         when(repository.findById(anyInt())).thenReturn(Mono.just(movie));
         when(repository.save(buildMovieToBeSaved())).thenReturn(Mono.just(movie));
         when(repository.delete(any(Movie.class))).thenReturn(Mono.empty());
+        when(repository.updateName(anyInt(), anyString())).thenReturn(Mono.just(1));
+        when(repository.removeById(anyInt())).thenReturn(Mono.just(1));
 
-        when(repository.saveAll(Arrays.asList(buildMovieToBeSaved(),buildMovieToBeSaved())))
+        when(repository.insertAll(Arrays.asList(buildMovieToBeSaved(),buildMovieToBeSaved())))
                 .thenReturn(Flux.just(movie, movie));
     }
 
@@ -96,6 +129,161 @@ public class MovieControllerIT {
                 .contains(movie);
     }
 
+    @Test
+    @DisplayName("it should return a movie as cbor when the client asks for it")
+    public void itShouldReturnMovieAsCbor() throws IOException {
+        byte[] body = testClient
+                .get()
+                .uri("/movies/{id}", MOVIE_ID)
+                .accept(APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertEquals(movie, new CBORMapper().readValue(body, Movie.class));
+    }
+
+    @Test
+    @DisplayName("it should return all movies as a cbor array when the client asks for it")
+    public void itShouldReturnAllMoviesAsCborArray() throws IOException {
+        byte[] body = testClient
+                .get()
+                .uri("/movies")
+                .accept(APPLICATION_CBOR)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(APPLICATION_CBOR)
+                .expectBody(byte[].class)
+                .returnResult()
+                .getResponseBody();
+
+        Assertions.assertArrayEquals(new Movie[]{movie}, new CBORMapper().readValue(body, Movie[].class));
+    }
+
+    @Test
+    @DisplayName("it should save a movie sent as cbor")
+    public void itShouldSaveMovieSentAsCbor() throws IOException {
+        testClient
+                .post()
+                .uri("/movies")
+                .contentType(APPLICATION_CBOR)
+                .accept(APPLICATION_JSON)
+                .bodyValue(new CBORMapper().writeValueAsBytes(buildMovieToBeSaved()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Movie.class)
+                .isEqualTo(movie);
+    }
+
+    @Test
+    @DisplayName("it should compress large responses when the client accepts gzip")
+    public void itShouldCompressLargeResponses(){
+        when(repository.findAll()).thenReturn(Flux.range(1, 200).map(id -> movie.withId(id)));
+
+        // compression is applied by the Netty server, so this goes over the wire with a client that does not
+        // decompress, and therefore keeps, the response's Content-Encoding
+        WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+                .baseUrl("http://localhost:" + port)
+                .build()
+                .get()
+                .uri("/movies")
+                .header(ACCEPT_ENCODING, "gzip")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(CONTENT_ENCODING, "gzip");
+    }
+
+    @Test
+    @DisplayName("it should answer a matching If-None-Match on the collection with not modified")
+    public void itShouldReturnNotModifiedForUnchangedCollection(){
+        testClient
+                .get()
+                .uri("/movies")
+                .ifNoneMatch("\"1-1-0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(ETAG, "\"1-1-0\"");
+
+        verify(repository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("it should stream all movies as ndjson with success")
+    public void itShouldStreamAllMoviesAsNdjson(){
+        when(repository.streamAll()).thenReturn(Flux.just(movie, movie));
+
+        testClient
+                .get()
+                .uri("/movies")
+                .accept(APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .expectBodyList(Movie.class)
+                .hasSize(2)
+                .contains(movie);
+    }
+
+    @Test
+    @DisplayName("it should return a page of movies with the next cursor")
+    public void itShouldReturnPageOfMovies(){
+        when(repository.findPageAfter(0, 1)).thenReturn(Flux.just(movie));
+
+        testClient
+                .get()
+                .uri("/movies?after=0&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(MOVIE_ID)
+                .jsonPath("$.next").isEqualTo(MOVIE_ID);
+    }
+
+    @Test
+    @DisplayName("it should return error when the page limit is out of bounds")
+    public void itShouldReturnErrorWhenPageLimitIsOutOfBounds(){
+        testClient
+                .get()
+                .uri("/movies?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+    }
+
+    @Test
+    @DisplayName("it should find several movies by their ids with success")
+    public void itShouldReturnMoviesByIds(){
+        when(repository.findAllByIds(new Integer[]{MOVIE_ID, 2})).thenReturn(Flux.just(movie));
+
+        testClient
+                .get()
+                .uri("/movies?ids=1,2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Movie.class)
+                .hasSize(1)
+                .contains(movie);
+    }
+
+    @Test
+    @DisplayName("it should search movies by name prefix with success")
+    public void itShouldSearchMoviesByNamePrefix(){
+        when(repository.searchByName("mov%", 10)).thenReturn(Flux.just(movie));
+
+        testClient
+                .get()
+                .uri("/movies/search?q=Mov&prefix=true&limit=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Movie.class)
+                .hasSize(1)
+                .contains(movie);
+    }
+
     @Test
     @DisplayName("it should find a movie by its id with success")
     public void itShouldReturnMonoMovieById(){
@@ -108,6 +296,41 @@ public class MovieControllerIT {
                 .isEqualTo(movie);
     }
 
+    @Test
+    @DisplayName("it should answer a matching If-None-Match with not modified from the version column")
+    public void itShouldReturnNotModifiedWhenMovieVersionMatches(){
+        int movieId = 7;
+        when(repository.findVersionById(movieId)).thenReturn(Mono.just(3L));
+
+        testClient
+                .get()
+                .uri("/movies/{id}", movieId)
+                .ifNoneMatch("\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(ETAG, "\"3\"");
+
+        verify(repository, never()).findById(movieId);
+    }
+
+    @Test
+    @DisplayName("it should return the movie with its new ETag when If-None-Match is stale")
+    public void itShouldReturnMovieWhenETagIsStale(){
+        int movieId = 8;
+        when(repository.findVersionById(movieId)).thenReturn(Mono.just(4L));
+        when(repository.findById(movieId)).thenReturn(Mono.just(movie.withId(movieId).withVersion(4L)));
+
+        testClient
+                .get()
+                .uri("/movies/{id}", movieId)
+                .ifNoneMatch("\"3\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ETAG, "\"4\"")
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(4);
+    }
+
     @Test
     @DisplayName("it should return a error when looking for a movieId that does not exists")
     public void itShouldReturnErrorWhenIdNotFound(){
@@ -122,6 +345,32 @@ public class MovieControllerIT {
                 .jsonPath("$.status").isEqualTo(404);
     }
 
+    @Test
+    @DisplayName("it should answer missing movies with the default error attributes and count them")
+    public void itShouldAnswerMissingMoviesWithErrorTemplate(){
+        when(repository.findById(5)).thenReturn(Mono.empty());
+
+        testClient
+                .get()
+                .uri("/movies/5")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.error").isEqualTo("Not Found")
+                .jsonPath("$.path").isEqualTo("/movies/5")
+                .jsonPath("$.timestamp").exists()
+                .jsonPath("$.requestId").exists();
+
+        testClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> assertTrue(body.contains("movie_errors_total{application=\"spring-webflux-poc\",status=\"404\",}")));
+    }
+
     @Test
     @DisplayName("it should save a movies with success")
     public void itShouldSaveTheMovieWithSuccess(){
@@ -154,6 +403,25 @@ public class MovieControllerIT {
                 .jsonPath("$.status").isEqualTo(400);
     }
 
+    @Test
+    @DisplayName("it should return error when saving a movie whose name does not fit the column")
+    public void itShouldReturnErrorWhenSavingMovieWithTooLongName(){
+        Movie movieToSave = buildMovieToBeSaved()
+                .withName(new String(new char[Movie.MAX_NAME_LENGTH + 1]).replace('\0', 'a'));
+
+        testClient
+                .post()
+                .uri("/movies/")
+                .contentType(APPLICATION_JSON)
+                .body(BodyInserters.fromValue(movieToSave))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+
+        verify(repository, never()).save(any());
+    }
+
     @Test
     @DisplayName("it should delete a movie -referenced by id- with success")
     public void itShouldDeleteTheMovieWithSuccess(){
@@ -171,7 +439,7 @@ public class MovieControllerIT {
     public void itShouldReturnErroWhenMovieIsNotFoundForDelete(){
         int movieNotFoundId = 2;
 
-        when(repository.findById(movieNotFoundId)).thenReturn(Mono.empty());
+        when(repository.removeById(movieNotFoundId)).thenReturn(Mono.just(0));
 
         testClient
                 .delete()
@@ -186,7 +454,6 @@ public class MovieControllerIT {
     @DisplayName("it should update a movie with success")
     public void itShouldUpdateTheMovieWithSuccess(){
         Movie movieToUpdate = buildMovieToBeUpdated();
-        when(repository.save(buildMovieToBeUpdated())).thenReturn(Mono.empty());
 
         testClient
                 .put()
@@ -199,13 +466,33 @@ public class MovieControllerIT {
                 .jsonPath("$.status", 200);
     }
 
+    @Test
+    @DisplayName("it should return precondition failed when If-Match does not match the movie version")
+    public void itShouldReturnPreconditionFailedWhenIfMatchIsStale(){
+        Movie movieToUpdate = buildMovieToBeUpdated();
+
+        when(repository.updateNameIfVersion(MOVIE_ID, movieToUpdate.getName(), new Long[]{3L})).thenReturn(Mono.just(0));
+        when(repository.existsById(MOVIE_ID)).thenReturn(Mono.just(true));
+
+        testClient
+                .put()
+                .uri("/movies/{id}", MOVIE_ID)
+                .header(IF_MATCH, "\"3\"")
+                .contentType(APPLICATION_JSON)
+                .body(BodyInserters.fromValue(movieToUpdate))
+                .exchange()
+                .expectStatus().isEqualTo(PRECONDITION_FAILED)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(412);
+    }
+
     @Test
     @DisplayName("it should return error when trying to update a movie that does not exists")
     public void itShouldReturnErrorWhenUpdatingMovieIsNotFound(){
         Movie movieToUpdate = buildMovieToBeUpdated();
         int idMovieNotFound = 2;
 
-        when(repository.findById(2)).thenReturn(Mono.empty());
+        when(repository.updateName(idMovieNotFound, movieToUpdate.getName())).thenReturn(Mono.just(0));
 
         testClient
                 .put()
@@ -240,17 +527,84 @@ public class MovieControllerIT {
     public void itShouldNotSaveListOfMoviesWhenEmptyName(){
         Movie movieToSave = buildMovieToBeSaved();
 
-        when(repository.saveAll(anyIterable())).thenReturn(Flux.just(movieToSave, movieToSave.withName("")));
-
         testClient
                 .post()
                 .uri("/movies/batch")
                 .contentType(APPLICATION_JSON)
-                .body(BodyInserters.fromValue(Arrays.asList(movieToSave, movieToSave)))
+                .body(BodyInserters.fromValue(Arrays.asList(movieToSave, movieToSave.withName(""))))
                 .exchange()
                 .expectStatus().isBadRequest()
                 .expectBody()
                 .jsonPath("$.status", 400);
     }
 
+    @Test
+    @DisplayName("it should ingest a ndjson stream of movies with success")
+    public void itShouldIngestNdjsonStreamOfMovies(){
+        testClient
+                .post()
+                .uri("/movies/ingest")
+                .contentType(APPLICATION_NDJSON)
+                .accept(APPLICATION_NDJSON)
+                .body(Flux.just(buildMovieToBeSaved(), buildMovieToBeSaved()), Movie.class)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.saved").isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("it should replay movie changes as server-sent events after the last event id")
+    public void itShouldStreamMovieChangesAsServerSentEvents() throws Exception {
+        int idMovieToBeRemoved = 8;
+        CompletableFuture<MovieChange> deletion = changeFeed.changes(null)
+                .filter(change -> change.getMovieId() == idMovieToBeRemoved)
+                .next()
+                .toFuture();
+
+        testClient
+                .delete()
+                .uri("/movies/{id}", idMovieToBeRemoved)
+                .exchange()
+                .expectStatus().isNoContent();
+
+        long lastEventId = deletion.get(10, TimeUnit.SECONDS).getId() - 1;
+
+        Flux<ServerSentEvent<MovieChange>> changes = testClient
+                .get()
+                .uri("/movies/changes")
+                .accept(TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", String.valueOf(lastEventId))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieChange>>() {})
+                .getResponseBody();
+
+        StepVerifier.create(changes.filter(event -> event.data().getMovieId() == idMovieToBeRemoved).next())
+                .expectNextMatches(event -> "deleted".equals(event.event())
+                        && String.valueOf(lastEventId + 1).equals(event.id()))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should expose endpoint and cache metrics for prometheus")
+    public void itShouldExposePrometheusMetrics(){
+        testClient
+                .get()
+                .uri("/movies/{id}", MOVIE_ID)
+                .exchange()
+                .expectStatus().isOk();
+
+        testClient
+                .get()
+                .uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(body -> {
+                    assertTrue(body.contains("http_server_requests_seconds_bucket"));
+                    assertTrue(body.contains("cache=\"movie\""));
+                });
+    }
+
 }
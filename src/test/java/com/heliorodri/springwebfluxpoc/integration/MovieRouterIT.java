@@ -0,0 +1,11 @@
+package com.heliorodri.springwebfluxpoc.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs every {@link MovieControllerIT} scenario against the functional routes, which must behave exactly like
+ * the annotated controller.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "movie.web.dispatch=functional")
+public class MovieRouterIT extends MovieControllerIT {
+}
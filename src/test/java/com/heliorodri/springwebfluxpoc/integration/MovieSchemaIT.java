@@ -0,0 +1,193 @@
+package com.heliorodri.springwebfluxpoc.integration;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieCatalogVersion;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+
+/**
+ * The migrations and the repository queries against the embedded profile's database, including the plans the
+ * queries get from the indexes the migrations create.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureWebTestClient
+@ActiveProfiles("embedded")
+public class MovieSchemaIT {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private MovieRepository repository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private WebTestClient testClient;
+
+    @BeforeEach
+    public void setUp(){
+        repository.deleteAll().block();
+    }
+
+    // the connection pool runs on the parallel scheduler; see ReadReplicaRoutingConnectionFactoryTest
+    @AfterAll
+    public static void stopSchedulers(){
+        Schedulers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("it should migrate the embedded database to the latest schema version")
+    public void itShouldMigrateToLatestVersion(){
+        assertEquals("4", flyway.info().current().getVersion().getVersion());
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    @DisplayName("it should save, page, search and update movies through the repository queries")
+    public void itShouldRunRepositoryQueries(){
+        Movie saved = repository.save(Movie.builder().name("The Schema Test").build()).block();
+
+        StepVerifier.create(repository.findById(saved.getId().intValue()))
+                .expectNextMatches(movie -> movie.getVersion() == 0L && "The Schema Test".equals(movie.getName()))
+                .verifyComplete();
+
+        StepVerifier.create(repository.findPageAfter(0, 20))
+                .expectNext(saved)
+                .verifyComplete();
+
+        StepVerifier.create(repository.searchByName("%schema%", 10))
+                .expectNext(saved)
+                .verifyComplete();
+
+        StepVerifier.create(repository.findAllByIds(new Integer[]{saved.getId(), saved.getId() + 1}))
+                .expectNext(saved)
+                .verifyComplete();
+
+        StepVerifier.create(repository.updateName(saved.getId(), "The Schema Test updated")
+                        .then(repository.findVersionById(saved.getId())))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should read the catalog version from count, highest id and sum of versions")
+    public void itShouldReadCatalogVersion(){
+        StepVerifier.create(repository.findCatalogVersion())
+                .expectNext(new MovieCatalogVersion(0, 0, 0))
+                .verifyComplete();
+
+        Movie saved = repository.save(Movie.builder().name("The Catalog Test").build()).block();
+        repository.updateName(saved.getId(), "The Catalog Test updated").block();
+
+        StepVerifier.create(repository.findCatalogVersion())
+                .expectNext(new MovieCatalogVersion(1, saved.getId(), 1))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should list the catalog with an etag that answers not modified until the catalog changes")
+    public void itShouldListCatalogWithETag(){
+        repository.save(Movie.builder().name("The ETag Test").build()).block();
+
+        String etag = testClient.get()
+                .uri("/movies")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Movie.class).hasSize(1)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        testClient.get()
+                .uri("/movies")
+                .header(IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        repository.save(Movie.builder().name("The ETag Test 2").build()).block();
+
+        testClient.get()
+                .uri("/movies")
+                .header(IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Movie.class).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("it should reject a movie whose name does not fit the column")
+    public void itShouldRejectNameLongerThanColumn(){
+        String name = new String(new char[Movie.MAX_NAME_LENGTH + 1]).replace('\0', 'a');
+
+        StepVerifier.create(repository.save(Movie.builder().name(name).build()))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should reject a movie with a blank name")
+    public void itShouldRejectBlankName(){
+        StepVerifier.create(repository.save(Movie.builder().name(" ").build()))
+                .expectError()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should look movies up by id through the primary key")
+    public void itShouldLookUpByPrimaryKey(){
+        String plan = explain("SELECT * FROM movie WHERE id = 1");
+
+        assertTrue(plan.contains("primary_key"), plan);
+        assertFalse(plan.contains("tablescan"), plan);
+    }
+
+    @Test
+    @DisplayName("it should read a page in primary key order without sorting")
+    public void itShouldReadPageInIndexOrder(){
+        String plan = explain("SELECT * FROM movie WHERE id > 0 ORDER BY id LIMIT 20");
+
+        assertTrue(plan.contains("primary_key"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    @DisplayName("it should order search results by the name index")
+    public void itShouldOrderSearchByNameIndex(){
+        String plan = explain("SELECT * FROM movie WHERE lower(name) LIKE '%schema%' ORDER BY name LIMIT 10");
+
+        assertTrue(plan.contains("movie_name_idx"), plan);
+    }
+
+    private String explain(String query) {
+        return databaseClient.sql("EXPLAIN " + query)
+                .map(row -> row.get(0, String.class))
+                .one()
+                .map(plan -> plan.toLowerCase(Locale.ROOT))
+                .block();
+    }
+
+}
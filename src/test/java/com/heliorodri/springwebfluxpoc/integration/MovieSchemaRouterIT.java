@@ -0,0 +1,11 @@
+package com.heliorodri.springwebfluxpoc.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs every {@link MovieSchemaIT} scenario against the functional routes, so both dispatch modes are exercised
+ * on a real database rather than a mocked repository.
+ */
+@SpringBootTest(properties = "movie.web.dispatch=functional")
+public class MovieSchemaRouterIT extends MovieSchemaIT {
+}
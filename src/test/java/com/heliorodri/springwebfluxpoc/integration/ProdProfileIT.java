@@ -0,0 +1,46 @@
+package com.heliorodri.springwebfluxpoc.integration;
+
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+/**
+ * Boots the prod profile, whose beans are created lazily, on a database of its own, so only a migration run
+ * at startup can have created the schema.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///prod_movies?options=DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.flyway.url=jdbc:h2:mem:prod_movies;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+})
+@ActiveProfiles({"embedded", "prod"})
+public class ProdProfileIT {
+
+    @Autowired
+    private MovieRepository repository;
+
+    // the connection pool runs on the parallel scheduler; see ReadReplicaRoutingConnectionFactoryTest
+    @AfterAll
+    public static void stopSchedulers(){
+        Schedulers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("it should migrate the schema at startup despite lazy initialization")
+    public void itShouldMigrateAtStartup(){
+        StepVerifier.create(repository.save(Movie.builder().name("The Prod Test").build())
+                        .then(repository.count()))
+                .expectNext(1L)
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.heliorodri.springwebfluxpoc.service;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.MOVIE_ID;
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildValidMovie;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class MovieBatchLoaderTest {
+
+    @Mock
+    private MovieRepository repository;
+
+    private MovieBatchLoader loader;
+
+    private final Movie movie = buildValidMovie();
+
+    @BeforeEach
+    public void setUp(){
+        MovieProperties properties = new MovieProperties();
+        properties.getLookup().setWindow(Duration.ofMillis(50));
+
+        loader = new MovieBatchLoader(repository, properties);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loader.destroy();
+    }
+
+    @Test
+    @DisplayName("it should merge concurrent lookups into a single query")
+    public void itShouldMergeConcurrentLookups(){
+        when(repository.findAllByIds(new Integer[]{MOVIE_ID, 2})).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(Flux.merge(loader.load(MOVIE_ID), loader.load(2)))
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+
+        verify(repository, times(1)).findAllByIds(any());
+    }
+
+    @Test
+    @DisplayName("it should complete empty for an id that does not exist")
+    public void itShouldCompleteEmptyForMissingId(){
+        when(repository.findAllByIds(new Integer[]{2})).thenReturn(Flux.empty());
+
+        StepVerifier.create(loader.load(2))
+                .expectSubscription()
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should propagate a query error to every caller in the batch")
+    public void itShouldPropagateErrorToEveryCaller(){
+        when(repository.findAllByIds(any())).thenReturn(Flux.error(new IllegalStateException()));
+
+        StepVerifier.create(Mono.when(loader.load(MOVIE_ID), loader.load(2)))
+                .expectSubscription()
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(loader.load(MOVIE_ID).onErrorResume(IllegalStateException.class, e -> Mono.empty()))
+                .expectSubscription()
+                .verifyComplete();
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.heliorodri.springwebfluxpoc.service;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.MOVIE_ID;
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildValidMovie;
+
+class MovieChangeFeedTest {
+
+    private MovieChangeFeed feed;
+
+    private final Movie movie = buildValidMovie();
+
+    @BeforeEach
+    public void setUp(){
+        MovieProperties properties = new MovieProperties();
+        properties.getChanges().setHistorySize(2);
+
+        feed = new MovieChangeFeed(properties, 0);
+    }
+
+    @Test
+    @DisplayName("it should only send changes published after a new subscriber joined")
+    public void itShouldOnlySendNewChangesToNewSubscribers(){
+        feed.created(movie);
+
+        StepVerifier.create(feed.changes(null))
+                .then(() -> feed.deleted(MOVIE_ID))
+                .expectNextMatches(change -> change.getId() == 2 && change.getType() == MovieChange.Type.DELETED)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should resume after the last event id a subscriber has seen")
+    public void itShouldResumeAfterLastEventId(){
+        feed.created(movie);
+        feed.updated(movie);
+
+        StepVerifier.create(feed.changes(1L))
+                .expectNextMatches(change -> change.getId() == 2 && change.getType() == MovieChange.Type.UPDATED)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should only replay the configured number of past changes")
+    public void itShouldReplayBoundedHistory(){
+        feed.created(movie);
+        feed.updated(movie);
+        feed.deleted(MOVIE_ID);
+
+        StepVerifier.create(feed.changes(1L))
+                .expectNextMatches(change -> change.getId() == 2)
+                .expectNextMatches(change -> change.getId() == 3 && change.getMovieId() == MOVIE_ID)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should reset a subscriber whose missed changes are no longer in the history")
+    public void itShouldResetWhenChangesWereLost(){
+        feed.created(movie);
+        feed.updated(movie);
+        feed.deleted(MOVIE_ID);
+
+        StepVerifier.create(feed.changes(0L))
+                .expectNextMatches(change -> change.getId() == 3 && change.getType() == MovieChange.Type.RESET)
+                .then(() -> feed.created(movie))
+                .expectNextMatches(change -> change.getId() == 4 && change.getType() == MovieChange.Type.CREATED)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should reset a subscriber resuming with an id this process has not handed out yet")
+    public void itShouldResetWhenLastEventIdIsAhead(){
+        feed.created(movie);
+
+        StepVerifier.create(feed.changes(500L))
+                .expectNextMatches(change -> change.getId() == 1 && change.getType() == MovieChange.Type.RESET)
+                .then(() -> feed.updated(movie))
+                .expectNextMatches(change -> change.getId() == 2 && change.getType() == MovieChange.Type.UPDATED)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should reset a subscriber resuming with an id handed out by an earlier process")
+    public void itShouldResetWhenLastEventIdIsFromAnotherProcess(){
+        MovieProperties properties = new MovieProperties();
+        MovieChangeFeed restarted = new MovieChangeFeed(properties, 1000);
+
+        StepVerifier.create(restarted.changes(1L))
+                .expectNextMatches(change -> change.getId() == 1000 && change.getType() == MovieChange.Type.RESET)
+                .then(() -> restarted.created(movie))
+                .expectNextMatches(change -> change.getId() == 1001)
+                .thenCancel()
+                .verify();
+    }
+
+}
@@ -1,6 +1,12 @@
 package com.heliorodri.springwebfluxpoc.service;
 
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
 import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.domain.MovieCatalogVersion;
+import com.heliorodri.springwebfluxpoc.exception.MovieNotFoundException;
+import com.heliorodri.springwebfluxpoc.domain.MovieIngestResult;
+import com.heliorodri.springwebfluxpoc.domain.MoviePage;
 import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
@@ -10,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -20,20 +27,35 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
+import reactor.util.context.ContextView;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.heliorodri.springwebfluxpoc.config.ReadReplicaRoutingConnectionFactory.readOnly;
 import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.MOVIE_ID;
 import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildMovieToBeSaved;
 import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildMovieToBeUpdated;
 import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildValidMovie;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -46,6 +68,21 @@ class MovieServiceTest {
     @Mock
     private static MovieRepository repository;
 
+    @Spy
+    private MovieProperties properties = new MovieProperties();
+
+    @Spy
+    private MovieCache cache = new MovieCache(properties);
+
+    @Mock
+    private MovieBatchLoader batchLoader;
+
+    @Spy
+    private MovieChangeFeed changeFeed = new MovieChangeFeed(properties);
+
+    @Mock
+    private MovieWriteBuffer writeBuffer;
+
     private static final Movie movie = buildValidMovie();
 
     @BeforeAll
@@ -60,8 +97,10 @@ class MovieServiceTest {
         when(repository.findById(anyInt())).thenReturn(Mono.just(movie));
         when(repository.save(buildMovieToBeSaved())).thenReturn(Mono.just(movie));
         when(repository.delete(any(Movie.class))).thenReturn(Mono.empty());
+        when(repository.updateName(anyInt(), anyString())).thenReturn(Mono.just(1));
+        when(repository.removeById(anyInt())).thenReturn(Mono.just(1));
 
-        when(repository.saveAll(Arrays.asList(buildMovieToBeSaved(), buildMovieToBeSaved())))
+        when(repository.insertAll(Arrays.asList(buildMovieToBeSaved(), buildMovieToBeSaved())))
                 .thenReturn(Flux.just(movie, movie));
     }
 
@@ -90,6 +129,25 @@ class MovieServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("it should read the catalog version and the full list from the primary")
+    public void itShouldReadCatalogFromPrimary(){
+        when(repository.findCatalogVersion()).thenReturn(Mono.deferContextual(context -> Mono.just(
+                new MovieCatalogVersion(1, 1, isReadOnly(context) ? 9 : 0))));
+        when(repository.findAll()).thenReturn(Flux.deferContextual(context -> Flux.just(
+                isReadOnly(context) ? movie.withName("replica") : movie)));
+
+        StepVerifier.create(service.findCatalogVersion())
+                .expectSubscription()
+                .expectNext("1-1-0")
+                .verifyComplete();
+
+        StepVerifier.create(service.findAll())
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("it should find a movie by its id with success")
     public void itShouldReturnMonoMovieById(){
@@ -99,6 +157,90 @@ class MovieServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("it should serve repeated lookups of the same id from the cache")
+    public void itShouldServeRepeatedLookupsFromCache(){
+        StepVerifier.create(service.findById(MOVIE_ID).then(service.findById(MOVIE_ID)))
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+
+        verify(repository, times(1)).findById(MOVIE_ID);
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    @Test
+    @DisplayName("it should coalesce concurrent misses for the same id into one query")
+    public void itShouldCoalesceConcurrentMisses(){
+        when(repository.findById(MOVIE_ID)).thenReturn(Mono.just(movie).delayElement(Duration.ofMillis(50)));
+
+        StepVerifier.create(Flux.merge(service.findById(MOVIE_ID), service.findById(MOVIE_ID)))
+                .expectSubscription()
+                .expectNext(movie, movie)
+                .verifyComplete();
+
+        verify(repository, times(1)).findById(MOVIE_ID);
+    }
+
+    @Test
+    @DisplayName("it should evict the cached movie when it is deleted")
+    public void itShouldEvictCachedMovieOnDelete(){
+        StepVerifier.create(service.findById(MOVIE_ID).then(service.delete(MOVIE_ID)))
+                .expectSubscription()
+                .verifyComplete();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("it should load a movie through the batch loader when coalescing is enabled")
+    public void itShouldLoadMovieThroughBatchLoaderWhenCoalescing(){
+        properties.getLookup().setCoalescing(true);
+        when(batchLoader.load(MOVIE_ID)).thenReturn(Mono.just(movie));
+
+        StepVerifier.create(service.findById(MOVIE_ID))
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+
+        verify(repository, never()).findById(anyInt());
+    }
+
+    @Test
+    @DisplayName("it should read the version of a cached movie without querying the database")
+    public void itShouldReadVersionOfCachedMovie(){
+        cache.put(movie.withVersion(3L));
+
+        StepVerifier.create(service.findVersion(MOVIE_ID))
+                .expectSubscription()
+                .expectNext(3L)
+                .verifyComplete();
+
+        verify(repository, never()).findVersionById(anyInt());
+    }
+
+    @Test
+    @DisplayName("it should return error when reading the version of a movie that does not exists")
+    public void itShouldReturnErrorWhenVersionIsNotFound(){
+        when(repository.findVersionById(2)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.findVersion(2))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should find several movies by their ids with a single query")
+    public void itShouldFindMoviesByIds(){
+        when(repository.findAllByIds(new Integer[]{MOVIE_ID, 2})).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.findAllById(Arrays.asList(MOVIE_ID, 2, MOVIE_ID)))
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+    }
+
     @Test
     @DisplayName("it should return a error when looking for a movieId that does not exists")
     public void itShouldReturnErrorWhenIdNotFound(){
@@ -112,6 +254,144 @@ class MovieServiceTest {
                 .verify();
     }
 
+    @Test
+    @DisplayName("it should answer repeated lookups of a missing movie without querying again")
+    public void itShouldRememberMissingMovies(){
+        when(repository.findById(2)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.findById(2).onErrorResume(ResponseStatusException.class, e -> service.findById(2)))
+                .expectSubscription()
+                .expectError(MovieNotFoundException.class)
+                .verify();
+
+        verify(repository, times(1)).findById(2);
+        assertEquals(1, cache.missingStats().hitCount());
+    }
+
+    @Test
+    @DisplayName("it should forget a missing movie once a movie is saved with its id")
+    public void itShouldForgetMissingMovieOnSave(){
+        Movie saved = movie.withId(2);
+        when(repository.findById(2)).thenReturn(Mono.empty());
+        when(repository.save(buildMovieToBeSaved())).thenReturn(Mono.just(saved));
+
+        StepVerifier.create(service.findById(2)
+                        .onErrorResume(ResponseStatusException.class, e -> service.save(buildMovieToBeSaved()))
+                        .then(service.findById(2)))
+                .expectSubscription()
+                .expectNext(saved)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should not remember a movie as missing when it was written during the lookup")
+    public void itShouldNotRememberMissingMovieWrittenDuringLookup(){
+        when(repository.findById(2)).thenReturn(Mono.<Movie>empty().delaySubscription(Duration.ofMillis(50)));
+
+        StepVerifier.create(service.findById(2))
+                .expectSubscription()
+                .then(() -> cache.invalidate(2))
+                .expectError(MovieNotFoundException.class)
+                .verify();
+
+        when(repository.findById(2)).thenReturn(Mono.just(movie.withId(2)));
+
+        StepVerifier.create(service.findById(2))
+                .expectSubscription()
+                .expectNext(movie.withId(2))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should signal a missing movie without capturing a stack trace")
+    public void itShouldSignalMissingMovieWithoutStackTrace(){
+        when(repository.findById(2)).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.findById(2))
+                .expectSubscription()
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof MovieNotFoundException);
+                    assertEquals(0, error.getStackTrace().length);
+                    assertEquals("Movie with id 2 not found", ((MovieNotFoundException) error).getReason());
+                })
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should stream all movies with success")
+    public void itShouldStreamAllMovies(){
+        when(repository.streamAll()).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.stream())
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should return a page with the next cursor when the page is full")
+    public void itShouldReturnPageWithNextCursor(){
+        when(repository.findPageAfter(0, 1)).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.findPage(0, 1))
+                .expectSubscription()
+                .expectNext(new MoviePage(Collections.singletonList(movie), MOVIE_ID))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should return a page without next cursor when it is the last page")
+    public void itShouldReturnLastPageWithoutNextCursor(){
+        when(repository.findPageAfter(eq(MOVIE_ID), anyInt())).thenReturn(Flux.empty());
+
+        StepVerifier.create(service.findPage(MOVIE_ID, null))
+                .expectSubscription()
+                .expectNext(new MoviePage(Collections.emptyList(), null))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should return error when the page limit is out of bounds")
+    public void itShouldReturnErrorWhenPageLimitIsOutOfBounds(){
+        StepVerifier.create(service.findPage(0, properties.getPage().getMaxLimit() + 1))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should search movies whose name contains the query")
+    public void itShouldSearchMoviesContainingQuery(){
+        when(repository.searchByName("%movie%", properties.getPage().getDefaultLimit())).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.search(" Movie ", false, null))
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should search movies whose name starts with the query and escape wildcards")
+    public void itShouldSearchMoviesByPrefix(){
+        when(repository.searchByName("m\\_%", 5)).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.search("M_", true, 5))
+                .expectSubscription()
+                .expectNext(movie)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should return error when the substring search query is too short")
+    public void itShouldReturnErrorWhenSearchQueryIsTooShort(){
+        StepVerifier.create(service.search("mo", false, null))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        verify(repository, never()).searchByName(anyString(), anyInt());
+    }
+
     @Test
     @DisplayName("it should save a movies with success")
     public void itShouldSaveTheMovieWithSuccess(){
@@ -121,6 +401,8 @@ class MovieServiceTest {
                 .expectSubscription()
                 .expectNext(movie)
                 .verifyComplete();
+
+        verify(changeFeed).created(movie);
     }
 
     @Test
@@ -131,6 +413,8 @@ class MovieServiceTest {
         StepVerifier.create(service.delete(idMovieToBeRemoved))
                 .expectSubscription()
                 .verifyComplete();
+
+        verify(changeFeed).deleted(idMovieToBeRemoved);
     }
 
     @Test
@@ -138,7 +422,7 @@ class MovieServiceTest {
     public void itShouldReturnErroWhenMovieIsNotFoundForDelete(){
         int movieNotFoundId = 2;
 
-        when(repository.findById(movieNotFoundId)).thenReturn(Mono.empty());
+        when(repository.removeById(movieNotFoundId)).thenReturn(Mono.just(0));
 
         StepVerifier.create(service.delete(movieNotFoundId))
                 .expectSubscription()
@@ -149,17 +433,120 @@ class MovieServiceTest {
     @Test
     @DisplayName("it should update a movie with success")
     public void itShouldUpdateTheMovieWithSuccess(){
-        when(repository.save(buildMovieToBeUpdated())).thenReturn(Mono.empty());
+        StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated()))
+                .expectSubscription()
+                .verifyComplete();
+
+        verify(repository).updateName(MOVIE_ID, buildMovieToBeUpdated().getName());
+        verify(repository, never()).findById(anyInt());
+        verify(changeFeed).updated(buildMovieToBeUpdated());
+    }
+
+    @Test
+    @DisplayName("it should buffer an update with the next version instead of writing it when write-behind is enabled")
+    public void itShouldBufferUpdateWhenWriteBehindIsEnabled(){
+        properties.getWriteBehind().setEnabled(true);
+        when(repository.findVersionById(MOVIE_ID)).thenReturn(Mono.deferContextual(context -> Mono.just(
+                isReadOnly(context) ? 2L : 3L)));
+        when(writeBuffer.put(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated()))
                 .expectSubscription()
                 .verifyComplete();
+
+        verify(writeBuffer).put(buildMovieToBeUpdated().withVersion(4L));
+        verify(repository, never()).updateName(anyInt(), anyString());
+        verify(changeFeed).updated(buildMovieToBeUpdated().withVersion(4L));
+    }
+
+    @Test
+    @DisplayName("it should change the catalog version while updates of listed movies are buffered")
+    public void itShouldMixBufferedUpdatesIntoCatalogVersion(){
+        properties.getWriteBehind().setEnabled(true);
+        when(repository.findCatalogVersion()).thenReturn(Mono.just(new MovieCatalogVersion(1, 1, 3)));
+        when(writeBuffer.isEmpty()).thenReturn(true, false);
+        when(writeBuffer.fingerprint()).thenReturn(35L);
+
+        StepVerifier.create(service.findCatalogVersion())
+                .expectSubscription()
+                .expectNext("1-1-3")
+                .verifyComplete();
+
+        StepVerifier.create(service.findCatalogVersion())
+                .expectSubscription()
+                .expectNext("1-1-3-23")
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should serve a buffered update to readers before it is written")
+    public void itShouldServeBufferedUpdate(){
+        properties.getWriteBehind().setEnabled(true);
+        Movie buffered = buildMovieToBeUpdated().withVersion(4L);
+        when(writeBuffer.get(MOVIE_ID)).thenReturn(buffered);
+
+        StepVerifier.create(service.findById(MOVIE_ID))
+                .expectSubscription()
+                .expectNext(buffered)
+                .verifyComplete();
+
+        StepVerifier.create(service.findVersion(MOVIE_ID))
+                .expectSubscription()
+                .expectNext(4L)
+                .verifyComplete();
+
+        verify(repository, never()).findById(anyInt());
+        verify(repository, never()).findVersionById(anyInt());
+    }
+
+    @Test
+    @DisplayName("it should write a buffered update before comparing versions for a conditional update")
+    public void itShouldFlushBufferedUpdateBeforeConditionalUpdate(){
+        properties.getWriteBehind().setEnabled(true);
+        AtomicBoolean flushed = new AtomicBoolean();
+        when(writeBuffer.flush(MOVIE_ID)).thenReturn(Mono.fromRunnable(() -> flushed.set(true)));
+        when(repository.updateNameIfVersion(MOVIE_ID, buildMovieToBeUpdated().getName(), new Long[]{4L}))
+                .thenReturn(Mono.fromSupplier(() -> flushed.get() ? 1 : 0));
+
+        StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated(), Collections.singletonList(4L)))
+                .expectSubscription()
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should publish a change for every movie saved in a batch once the batch completes")
+    public void itShouldPublishChangesForSavedBatch(){
+        when(repository.insertAll(Collections.singletonList(buildMovieToBeSaved()))).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.saveAll(Arrays.asList(buildMovieToBeSaved(), buildMovieToBeUpdated())))
+                .expectSubscription()
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(changeFeed).created(movie);
+        verify(changeFeed).updated(buildMovieToBeUpdated());
+    }
+
+    @Test
+    @DisplayName("it should not publish changes for a batch that fails")
+    public void itShouldNotPublishChangesForFailedBatch(){
+        when(repository.insertAll(Collections.singletonList(buildMovieToBeSaved()))).thenReturn(Flux.just(movie));
+        when(repository.updateName(anyInt(), anyString())).thenReturn(Mono.just(0));
+
+        StepVerifier.create(service.saveAll(Arrays.asList(buildMovieToBeSaved(), buildMovieToBeUpdated())))
+                .expectSubscription()
+                .expectNext(movie)
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        verify(changeFeed, never()).created(any());
+        verify(changeFeed, never()).updated(any());
     }
 
     @Test
     @DisplayName("it should return error when trying to update a movie that does not exists")
     public void itShouldReturnErrorWhenMovieToUpdateDoesNotExists(){
-        when(repository.findById(anyInt())).thenReturn(Mono.empty());
+        when(repository.updateName(anyInt(), anyString())).thenReturn(Mono.just(0));
 
         StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated()))
                 .expectSubscription()
@@ -167,6 +554,45 @@ class MovieServiceTest {
                 .verify();
     }
 
+    @Test
+    @DisplayName("it should update a movie whose version matches the expected one")
+    public void itShouldUpdateMovieWhenVersionMatches(){
+        when(repository.updateNameIfVersion(MOVIE_ID, buildMovieToBeUpdated().getName(), new Long[]{3L}))
+                .thenReturn(Mono.just(1));
+
+        StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated(), Collections.singletonList(3L)))
+                .expectSubscription()
+                .verifyComplete();
+
+        verify(repository, never()).existsById(anyInt());
+    }
+
+    @Test
+    @DisplayName("it should return precondition failed when the movie version has changed")
+    public void itShouldReturnPreconditionFailedWhenVersionChanged(){
+        when(repository.updateNameIfVersion(anyInt(), anyString(), any())).thenReturn(Mono.just(0));
+        when(repository.existsById(MOVIE_ID)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated(), Collections.singletonList(3L)))
+                .expectSubscription()
+                .expectErrorMatches(e -> e instanceof ResponseStatusException
+                        && ((ResponseStatusException) e).getStatus() == PRECONDITION_FAILED)
+                .verify();
+    }
+
+    @Test
+    @DisplayName("it should return not found when conditionally updating a movie that does not exists")
+    public void itShouldReturnNotFoundWhenConditionallyUpdatingMissingMovie(){
+        when(repository.updateNameIfVersion(anyInt(), anyString(), any())).thenReturn(Mono.just(0));
+        when(repository.existsById(MOVIE_ID)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(service.update(MOVIE_ID, buildMovieToBeUpdated(), Collections.singletonList(3L)))
+                .expectSubscription()
+                .expectErrorMatches(e -> e instanceof ResponseStatusException
+                        && ((ResponseStatusException) e).getStatus() == NOT_FOUND)
+                .verify();
+    }
+
     @Test
     @DisplayName("it should save a list of movies with success")
     public void itShouldSaveListOfMoviesWithSuccess(){
@@ -178,6 +604,34 @@ class MovieServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    @DisplayName("it should insert a list of movies in chunks of the configured size")
+    public void itShouldInsertListOfMoviesInChunks(){
+        properties.getBatch().setChunkSize(1);
+        when(repository.insertAll(Collections.singletonList(buildMovieToBeSaved()))).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.saveAll(Arrays.asList(buildMovieToBeSaved(), buildMovieToBeSaved())))
+                .expectSubscription()
+                .expectNext(movie, movie)
+                .verifyComplete();
+
+        verify(repository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("it should update movies that already have an id instead of inserting them")
+    public void itShouldUpdateExistingMoviesInBatch(){
+        List<Movie> moviesToSave = Collections.singletonList(buildMovieToBeUpdated());
+
+        StepVerifier.create(service.saveAll(moviesToSave))
+                .expectSubscription()
+                .expectNext(buildMovieToBeUpdated())
+                .verifyComplete();
+
+        verify(repository).updateName(MOVIE_ID, buildMovieToBeUpdated().getName());
+        verify(repository, never()).insertAll(anyList());
+    }
+
     @Test
     @DisplayName("it should not save a list of movies when at least one movie name is empty")
     public void itShouldNotSaveListOfMoviesWhenEmptyName(){
@@ -186,13 +640,57 @@ class MovieServiceTest {
                 buildMovieToBeSaved().withName("")
         );
 
-        when(repository.saveAll(moviesToSave)).thenReturn(Flux.just(movie, movie.withName("")));
+        StepVerifier.create(service.saveAll(moviesToSave))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        verify(repository, never()).insertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("it should reject a list of movies with a blank name before it reaches the database")
+    public void itShouldNotSaveListOfMoviesWhenBlankName(){
+        List<Movie> moviesToSave = Arrays.asList(
+                buildMovieToBeSaved(),
+                buildMovieToBeSaved().withName("  ")
+        );
 
         StepVerifier.create(service.saveAll(moviesToSave))
                 .expectSubscription()
-                .expectNext(movie)
-                .expectError()
+                .expectErrorMatches(e -> e instanceof ResponseStatusException
+                        && ((ResponseStatusException) e).getStatus() == BAD_REQUEST)
                 .verify();
+
+        verify(repository, never()).insertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("it should ingest a stream of movies chunk by chunk")
+    public void itShouldIngestStreamOfMoviesInChunks(){
+        properties.getBatch().setChunkSize(1);
+        when(repository.insertAll(Collections.singletonList(buildMovieToBeSaved()))).thenReturn(Flux.just(movie));
+
+        StepVerifier.create(service.ingest(Flux.just(buildMovieToBeSaved(), buildMovieToBeSaved())))
+                .expectSubscription()
+                .expectNext(new MovieIngestResult(0, 1, Collections.singletonList(MOVIE_ID)))
+                .expectNext(new MovieIngestResult(1, 1, Collections.singletonList(MOVIE_ID)))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("it should stop ingesting when a movie name is empty")
+    public void itShouldStopIngestingWhenEmptyName(){
+        StepVerifier.create(service.ingest(Flux.just(buildMovieToBeSaved(), buildMovieToBeSaved().withName(""))))
+                .expectSubscription()
+                .expectError(ResponseStatusException.class)
+                .verify();
+
+        verify(repository, never()).insertAll(anyList());
+    }
+
+    private static boolean isReadOnly(ContextView context) {
+        return readOnly().stream().anyMatch(entry -> context.hasKey(entry.getKey()));
     }
 
-}
\ No newline at end of file
+}
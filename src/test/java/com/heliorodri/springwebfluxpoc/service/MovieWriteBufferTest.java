@@ -0,0 +1,160 @@
+package com.heliorodri.springwebfluxpoc.service;
+
+import com.heliorodri.springwebfluxpoc.cache.MovieCache;
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import com.heliorodri.springwebfluxpoc.domain.Movie;
+import com.heliorodri.springwebfluxpoc.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.MOVIE_ID;
+import static com.heliorodri.springwebfluxpoc.service.util.MovieTestBuilder.buildMovieToBeUpdated;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class MovieWriteBufferTest {
+
+    @Mock
+    private MovieRepository repository;
+
+    private final MovieProperties properties = new MovieProperties();
+
+    private MovieWriteBuffer buffer;
+
+    private final Movie update = buildMovieToBeUpdated().withVersion(1L);
+
+    @BeforeEach
+    public void setUp(){
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setFlushInterval(Duration.ofMinutes(1));
+        properties.getWriteBehind().setMaxBatchSize(2);
+        when(repository.updateNames(anyList())).thenAnswer(invocation ->
+                Mono.just(invocation.<List<?>>getArgument(0).size()));
+    }
+
+    @AfterEach
+    public void tearDown(){
+        buffer.destroy();
+    }
+
+    // the flush interval runs on the parallel scheduler; see ReadReplicaRoutingConnectionFactoryTest
+    @AfterAll
+    public static void stopSchedulers(){
+        Schedulers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("it should keep only the latest update of a movie, moving its version on")
+    public void itShouldCoalesceUpdatesOfTheSameMovie(){
+        buffer = newBuffer();
+
+        buffer.put(update);
+        buffer.put(update.withName("Latest").withVersion(1L));
+
+        assertEquals(update.withName("Latest").withVersion(2L), buffer.get(MOVIE_ID));
+        assertEquals(1, buffer.size());
+        verify(repository, after(100).never()).updateNames(anyList());
+    }
+
+    @Test
+    @DisplayName("it should move the fingerprint on with every buffered update")
+    public void itShouldMoveFingerprintOnWithEveryUpdate(){
+        buffer = newBuffer();
+        assertTrue(buffer.isEmpty());
+
+        buffer.put(update);
+        long first = buffer.fingerprint();
+        buffer.put(update.withName("Latest"));
+
+        assertFalse(buffer.isEmpty());
+        assertNotEquals(first, buffer.fingerprint());
+    }
+
+    @Test
+    @DisplayName("it should write pending updates in one statement once the batch size is reached")
+    public void itShouldFlushWhenBatchIsFull(){
+        buffer = newBuffer();
+        Movie other = update.withId(2);
+
+        buffer.put(update);
+        buffer.put(other);
+
+        verify(repository, timeout(1000)).updateNames(Arrays.asList(update, other));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    @DisplayName("it should keep an update that arrived while an older one of the same movie was written")
+    public void itShouldKeepUpdateArrivingDuringFlush(){
+        buffer = newBuffer();
+        Movie latest = update.withName("Latest").withVersion(2L);
+        when(repository.updateNames(Collections.singletonList(update))).thenReturn(Mono.fromSupplier(() -> {
+            buffer.put(latest);
+            return 1;
+        }));
+
+        buffer.put(update);
+        StepVerifier.create(buffer.flush(MOVIE_ID))
+                .expectSubscription()
+                .verifyComplete();
+
+        assertEquals(latest, buffer.get(MOVIE_ID));
+    }
+
+    @Test
+    @DisplayName("it should keep pending updates when writing them fails")
+    public void itShouldKeepUpdatesWhenFlushFails(){
+        buffer = newBuffer();
+        when(repository.updateNames(anyList())).thenReturn(Mono.error(new IllegalStateException()));
+
+        buffer.put(update);
+        StepVerifier.create(buffer.flush())
+                .expectSubscription()
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals(update, buffer.get(MOVIE_ID));
+    }
+
+    @Test
+    @DisplayName("it should write pending updates when shutting down")
+    public void itShouldDrainOnShutdown(){
+        buffer = newBuffer();
+
+        buffer.put(update);
+        verify(repository, never()).updateNames(anyList());
+        buffer.destroy();
+
+        verify(repository).updateNames(Collections.singletonList(update));
+        assertEquals(0, buffer.size());
+    }
+
+    private MovieWriteBuffer newBuffer() {
+        return new MovieWriteBuffer(repository, properties, new MovieCache(properties), new SimpleMeterRegistry());
+    }
+
+}
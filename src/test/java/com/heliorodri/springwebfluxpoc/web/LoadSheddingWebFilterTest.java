@@ -0,0 +1,137 @@
+package com.heliorodri.springwebfluxpoc.web;
+
+import com.heliorodri.springwebfluxpoc.config.MovieProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM;
+
+class LoadSheddingWebFilterTest {
+
+    private final MovieProperties properties = new MovieProperties();
+
+    private final WebFilterChain chain = exchange -> Mono.empty();
+
+    @BeforeEach
+    public void setUp(){
+        properties.getLimits().getRate().setRequestsPerSecond(1);
+        properties.getLimits().getRate().setBurst(2);
+    }
+
+    @Test
+    @DisplayName("it should reject a client once its burst is used up")
+    public void itShouldRejectClientOnceBurstIsUsedUp(){
+        LoadSheddingWebFilter filter = new LoadSheddingWebFilter(properties, new SimpleMeterRegistry());
+
+        assertNull(filter(filter, "client-a").getResponse().getStatusCode());
+        assertNull(filter(filter, "client-a").getResponse().getStatusCode());
+
+        MockServerWebExchange rejected = filter(filter, "client-a");
+        assertEquals(TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst(RETRY_AFTER));
+
+        assertNull(filter(filter, "client-b").getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("it should apply the rate configured for an endpoint")
+    public void itShouldApplyEndpointRate(){
+        MovieProperties.Rate rate = new MovieProperties.Rate();
+        rate.setBurst(1);
+        properties.getLimits().getEndpoints().put("GET /movies/{id}", rate);
+        LoadSheddingWebFilter filter = new LoadSheddingWebFilter(properties, new SimpleMeterRegistry());
+
+        assertNull(filter(filter, "client-a").getResponse().getStatusCode());
+        assertEquals(TOO_MANY_REQUESTS, filter(filter, "client-a").getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("it should shed requests over the concurrency limit but not streams")
+    public void itShouldShedRequestsOverConcurrencyLimit(){
+        properties.getLimits().getRate().setBurst(100);
+        properties.getLimits().getConcurrency().setInitialLimit(1);
+        LoadSheddingWebFilter filter = new LoadSheddingWebFilter(properties, new SimpleMeterRegistry());
+        Sinks.Empty<Void> pending = Sinks.empty();
+
+        MockServerWebExchange first = exchange("client-a");
+        filter.filter(first, exchange -> pending.asMono()).subscribe();
+
+        MockServerWebExchange shed = filter(filter, "client-b");
+        assertEquals(SERVICE_UNAVAILABLE, shed.getResponse().getStatusCode());
+        assertEquals("1", shed.getResponse().getHeaders().getFirst(RETRY_AFTER));
+
+        MockServerWebExchange stream = MockServerWebExchange.from(MockServerHttpRequest.get("/movies/changes")
+                .accept(TEXT_EVENT_STREAM));
+        StepVerifier.create(filter.filter(stream, chain)).verifyComplete();
+        assertNull(stream.getResponse().getStatusCode());
+
+        pending.tryEmitEmpty();
+        assertNull(filter(filter, "client-b").getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("it should lower the concurrency limit when latency grows")
+    public void itShouldLowerConcurrencyLimitWhenLatencyGrows(){
+        MovieProperties.Concurrency concurrency = properties.getLimits().getConcurrency();
+        concurrency.setInitialLimit(20);
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(concurrency);
+
+        for (int i = 0; i < 100; i++) {
+            int acquired = acquireAll(limiter);
+            release(limiter, acquired, Duration.ofMillis(10));
+        }
+        int steadyLimit = limiter.getLimit();
+
+        int acquired = acquireAll(limiter);
+        release(limiter, 10, Duration.ofMillis(100));
+
+        assertTrue(limiter.getLimit() < steadyLimit);
+        assertTrue(limiter.getLimit() >= concurrency.getMinLimit());
+
+        release(limiter, acquired - 10, Duration.ofMillis(100));
+    }
+
+    private static int acquireAll(GradientConcurrencyLimiter limiter) {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+
+        return acquired;
+    }
+
+    private static void release(GradientConcurrencyLimiter limiter, int count, Duration rtt) {
+        for (int i = 0; i < count; i++) {
+            limiter.release(rtt.toNanos(), true);
+        }
+    }
+
+    private MockServerWebExchange filter(LoadSheddingWebFilter filter, String client) {
+        MockServerWebExchange exchange = exchange(client);
+        StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+
+        return exchange;
+    }
+
+    private MockServerWebExchange exchange(String client) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get("/movies/{id}", 1)
+                .header(properties.getLimits().getClientHeader(), client));
+    }
+
+}